@@ -0,0 +1,49 @@
+package bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The BenchmarkMain class runs the benchmarks like JMH's own main, taking
+ * the same command line, except that results are written as JSON unless
+ * another format is asked for with -rf. The JSON of two releases can then
+ * be compared to spot regressions.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args
+     *            JMH command line options
+     * @throws Exception
+     *             if the options are invalid or the run fails
+     */
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp()) {
+            options.showHelp();
+            return;
+        }
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+        if (!options.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        Runner runner = new Runner(builder.build());
+        if (options.shouldList()) {
+            runner.list();
+            return;
+        }
+        runner.run();
+    }
+}
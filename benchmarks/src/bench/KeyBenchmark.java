@@ -0,0 +1,145 @@
+package bench;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The KeyBenchmark class times the key read behind one comparison, the way
+ * the two scans of a partition make them: alternately from the low end and
+ * the high end of a window of blocks, moving inwards until they meet and
+ * starting over. The key comes through Sorter.getKey and the pool, through
+ * a pair of BlockCursors, one per scan, or through a KeyShadow.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyBenchmark {
+    private static final int FILEBLOCKS = 256;
+    private static final int RECORDS = 1024;
+
+    /**
+     * Where the keys come from: "pool", "cursor" or "shadow".
+     */
+    @Param({ "pool", "cursor", "shadow" })
+    public String source;
+
+    /**
+     * The number of blocks the scans cover.
+     */
+    @Param({ "2", "16" })
+    public int window;
+
+    /**
+     * The number of buffers in the pool.
+     */
+    @Param({ "4", "16" })
+    public int buffers;
+
+    /**
+     * The number of blocks of keys the shadow holds.
+     */
+    @Param({ "16" })
+    public int shadow;
+
+    private Path directory;
+    private Object sorter;
+    private Object pool;
+    private Object low;
+    private Object high;
+    private Object keys;
+    private long first;
+    private long last;
+    private long next;
+    private long previous;
+    private boolean up;
+
+    /**
+     * Generates the file and opens the pool and the key sources over it.
+     *
+     * @throws Throwable
+     *             if the file or pool cannot be created
+     */
+    @Setup(Level.Trial)
+    public void open() throws Throwable {
+        directory = Files.createTempDirectory("key");
+        String file = directory.resolve("key.bin").toString();
+        Project.generate(file, FILEBLOCKS, 'b');
+        sorter = Project.sorter(file, buffers, directory.resolve("stats.txt")
+            .toString());
+        pool = Project.getPool(sorter);
+        low = Project.cursor(pool);
+        high = Project.cursor(pool);
+        keys = Project.shadow(pool, (long)FILEBLOCKS * RECORDS, shadow);
+        first = 0;
+        last = (long)window * RECORDS - 1;
+        next = first;
+        previous = last;
+        up = true;
+    }
+
+
+    /**
+     * Releases the cursors, closes the pool and deletes the file.
+     *
+     * @throws Throwable
+     *             if the file cannot be closed
+     */
+    @TearDown(Level.Trial)
+    public void close() throws Throwable {
+        Project.release(low);
+        Project.release(high);
+        Project.close(pool);
+        for (File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        directory.toFile().delete();
+    }
+
+
+    /**
+     * Reads the key of one comparison.
+     *
+     * @return the key
+     * @throws Throwable
+     *             whatever the pool throws
+     */
+    @Benchmark
+    public int key() throws Throwable {
+        boolean fromLow = up;
+        long ind = fromLow ? next++ : previous--;
+        up = !up;
+        if (next > previous) {
+            next = first;
+            previous = last;
+        }
+        switch (source) {
+            case "cursor":
+                return Project.cursorKey(fromLow ? low : high, ind);
+            case "shadow":
+                return Project.shadowKey(keys, ind);
+            default:
+                return Project.getKey(sorter, ind);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package bench;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The PartitionBenchmark class times the first partition of a file by
+ * Sorter.partition, around the key of the last record. A partition changes
+ * the file, so each measurement is a single shot on a fresh copy of the
+ * same generated data, through a freshly opened pool.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+public class PartitionBenchmark {
+    private static final int RECORDS = 1024;
+
+    /**
+     * The number of blocks in the file.
+     */
+    @Param({ "16", "256" })
+    public int blocks;
+
+    /**
+     * The number of buffers in the pool.
+     */
+    @Param({ "1", "4", "16" })
+    public int buffers;
+
+    /**
+     * The FileGenerator format: "a" for few distinct keys, "b" for random
+     * keys.
+     */
+    @Param({ "a", "b" })
+    public String format;
+
+    private Path directory;
+    private byte[] data;
+    private String file;
+    private Object sorter;
+    private Object pool;
+    private int pivot;
+
+    /**
+     * Generates the data once for all measurements.
+     *
+     * @throws Throwable
+     *             if the file cannot be generated
+     */
+    @Setup(Level.Trial)
+    public void generate() throws Throwable {
+        directory = Files.createTempDirectory("partition");
+        file = directory.resolve("partition.bin").toString();
+        Project.generate(file, blocks, format.charAt(0));
+        data = Files.readAllBytes(new File(file).toPath());
+    }
+
+
+    /**
+     * Restores the data and opens a sorter over it.
+     *
+     * @throws Throwable
+     *             if the file cannot be written or opened
+     */
+    @Setup(Level.Iteration)
+    public void restore() throws Throwable {
+        Files.write(new File(file).toPath(), data);
+        sorter = Project.sorter(file, buffers, directory.resolve("stats.txt")
+            .toString());
+        pool = Project.getPool(sorter);
+        pivot = Project.getKey(sorter, (long)blocks * RECORDS - 1);
+    }
+
+
+    /**
+     * Closes the pool without writing the partitioned data back.
+     *
+     * @throws Throwable
+     *             if the file cannot be closed
+     */
+    @TearDown(Level.Iteration)
+    public void close() throws Throwable {
+        Project.close(pool);
+    }
+
+
+    /**
+     * Deletes the files.
+     */
+    @TearDown(Level.Trial)
+    public void delete() {
+        for (File each : directory.toFile().listFiles()) {
+            each.delete();
+        }
+        directory.toFile().delete();
+    }
+
+
+    /**
+     * Partitions every record but the last around the last one's key.
+     *
+     * @return the partition index
+     * @throws Throwable
+     *             whatever the pool throws
+     */
+    @Benchmark
+    public long partition() throws Throwable {
+        return Project.partition(sorter, pool, 0, (long)blocks * RECORDS - 2,
+            pivot);
+    }
+}
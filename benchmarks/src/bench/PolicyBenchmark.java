@@ -0,0 +1,104 @@
+package bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The PolicyBenchmark class times the operations of the replacement
+ * policies, which for "lru" and "2q" are the ListLRU operations: a hit
+ * moves a frame to the front of its list, and an eviction removes the last
+ * frame and links the new block at the front. The policies are driven
+ * through their interface, so the benchmark keeps working whatever the
+ * lists look like inside.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolicyBenchmark {
+    private static final int HITS = 1 << 16;
+
+    /**
+     * The replacement policy.
+     */
+    @Param({ "lru", "2q", "clock" })
+    public String policy;
+
+    /**
+     * The number of frames the policy manages.
+     */
+    @Param({ "16", "1024" })
+    public int frames;
+
+    private Object replacement;
+    private int[] hits;
+    private int next;
+    private long block;
+
+    /**
+     * Creates the policy with every frame admitted, and a random sequence
+     * of frames to hit.
+     *
+     * @throws Throwable
+     *             if the policy name is unknown
+     */
+    @Setup(Level.Trial)
+    public void create() throws Throwable {
+        replacement = Project.policy(policy, frames);
+        for (int frame = 0; frame < frames; frame++) {
+            Project.admit(replacement, frame, frame);
+        }
+        block = frames;
+        Random random = new Random(frames);
+        hits = new int[HITS];
+        for (int i = 0; i < HITS; i++) {
+            hits[i] = random.nextInt(frames);
+        }
+        next = 0;
+    }
+
+
+    /**
+     * Hits one frame.
+     *
+     * @throws Throwable
+     *             whatever the policy throws
+     */
+    @Benchmark
+    public void hit() throws Throwable {
+        Project.hit(replacement, hits[next]);
+        next = (next + 1) & (HITS - 1);
+    }
+
+
+    /**
+     * Evicts the victim frame and admits a new block into it.
+     *
+     * @return the victim frame
+     * @throws Throwable
+     *             whatever the policy throws
+     */
+    @Benchmark
+    public int evict() throws Throwable {
+        int frame = Project.victim(replacement);
+        Project.admit(replacement, frame, block++);
+        return frame;
+    }
+}
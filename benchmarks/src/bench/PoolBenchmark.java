@@ -0,0 +1,229 @@
+package bench;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The PoolBenchmark class times one record read or write through a
+ * BufferPool, on the hit path and on the miss path. Hits cycle through as
+ * many blocks as the pool holds; misses cycle through a file of twice as
+ * many blocks, and at least MINBLOCKS, which under LRU evicts every block
+ * before it comes round again. Writes on the miss path therefore also pay
+ * for dirty evictions. The lookup of a resident block is also timed on its
+ * own, through the pool's BlockIndex and through the linear scan the pool
+ * used before it, which walked the LRU list from the head for every
+ * position it tried.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoolBenchmark {
+    private static final int MINBLOCKS = 256;
+    private static final int RECORDS = 1024;
+
+    /**
+     * The number of buffers in the pool.
+     */
+    @Param({ "1", "8", "64", "512", "4096" })
+    public int buffers;
+
+    /**
+     * "hit" to stay within the resident blocks, "miss" to leave them.
+     */
+    @Param({ "hit", "miss" })
+    public String path;
+
+    /**
+     * The replacement policy of the pool.
+     */
+    @Param({ "lru" })
+    public String policy;
+
+    private Path directory;
+    private Object pool;
+    private Object index;
+    private WalkedList walked;
+    private byte[] record = new byte[4];
+    private int span;
+    private long block;
+
+    /**
+     * Generates the file and opens a pool over it, with the blocks of the
+     * hit path already resident.
+     *
+     * @throws Throwable
+     *             if the file or pool cannot be created
+     */
+    @Setup(Level.Trial)
+    public void open() throws Throwable {
+        directory = Files.createTempDirectory("pool");
+        String file = directory.resolve("pool.bin").toString();
+        int fileBlocks = Math.max(MINBLOCKS, 2 * buffers);
+        Project.generate(file, fileBlocks, 'b');
+        pool = Project.pool(file, buffers, policy);
+        span = path.equals("hit") ? buffers : fileBlocks;
+        for (int i = 0; i < span; i++) {
+            Project.getBytes(pool, record, 4, (long)i * RECORDS);
+        }
+        index = Project.index(buffers);
+        walked = new WalkedList();
+        for (int i = 0; i < buffers; i++) {
+            Project.indexPut(index, i, i);
+            walked.addFirst(i);
+        }
+        block = 0;
+    }
+
+
+    /**
+     * Closes the pool and deletes the file.
+     *
+     * @throws Throwable
+     *             if the file cannot be closed
+     */
+    @TearDown(Level.Trial)
+    public void close() throws Throwable {
+        Project.close(pool);
+        for (File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        directory.toFile().delete();
+    }
+
+
+    /**
+     * Reads one record.
+     *
+     * @param sink
+     *            consumes the record
+     * @throws Throwable
+     *             whatever the pool throws
+     */
+    @Benchmark
+    public void getBytes(Blackhole sink) throws Throwable {
+        Project.getBytes(pool, record, 4, next());
+        sink.consume(record);
+    }
+
+
+    /**
+     * Writes one record.
+     *
+     * @throws Throwable
+     *             whatever the pool throws
+     */
+    @Benchmark
+    public void insert() throws Throwable {
+        Project.insert(pool, record, 4, next());
+    }
+
+
+    /**
+     * Finds the frame of a resident block through the BlockIndex.
+     *
+     * @return the frame
+     * @throws Throwable
+     *             never
+     */
+    @Benchmark
+    public int indexLookup() throws Throwable {
+        return Project.indexGet(index, nextResident());
+    }
+
+
+    /**
+     * Finds the frame of a resident block with the old linear scan, the
+     * baseline of indexLookup.
+     *
+     * @return the frame
+     */
+    @Benchmark
+    public int walkLookup() {
+        return walked.search(nextResident());
+    }
+
+
+    private long nextResident() {
+        long resident = block % buffers;
+        block = (block + 1) % span;
+        return resident;
+    }
+
+
+    private long next() {
+        long ind = block * RECORDS + block % RECORDS;
+        block = (block + 1) % span;
+        return ind;
+    }
+
+
+    /**
+     * The LRU list and lookup the pool used before BlockIndex: a linked
+     * list of frames whose get walks from the head, searched by trying
+     * each position in turn, so a lookup costs O(n^2) hops.
+     */
+    private static final class WalkedList {
+        private Node head = null;
+        private int size = 0;
+
+        /**
+         * A node of the list, holding the block of one frame.
+         */
+        private static final class Node {
+            private final long block;
+            private final Node next;
+
+            Node(long block, Node next) {
+                this.block = block;
+                this.next = next;
+            }
+        }
+
+
+        void addFirst(long block) {
+            head = new Node(block, head);
+            size++;
+        }
+
+
+        Node get(int ind) {
+            Node curr = head;
+            for (int i = 0; i < ind; i++) {
+                curr = curr.next;
+            }
+            return curr;
+        }
+
+
+        int search(long block) {
+            for (int i = 0; i < size; i++) {
+                if (get(i).block == block) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
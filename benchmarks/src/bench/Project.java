@@ -0,0 +1,542 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * The Project class gives the benchmarks access to the sorter. The sorter's
+ * classes live in the unnamed package, which a named package cannot import,
+ * and JMH refuses benchmarks in the unnamed package, so every operation the
+ * benchmarks use is bound here once as a method handle. The handles are
+ * constants, so the JIT inlines them as it would a direct call.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public final class Project {
+    private static final MethodHandle GENERATE;
+    private static final MethodHandle POLICY;
+    private static final MethodHandle POOL;
+    private static final MethodHandle GET_BYTES;
+    private static final MethodHandle INSERT;
+    private static final MethodHandle CLOSE_POOL;
+    private static final MethodHandle HIT;
+    private static final MethodHandle ADMIT;
+    private static final MethodHandle VICTIM;
+    private static final MethodHandle PARSE;
+    private static final MethodHandle SORTER;
+    private static final MethodHandle ENGINE;
+    private static final MethodHandle GET_POOL;
+    private static final MethodHandle GET_KEY;
+    private static final MethodHandle PARTITION;
+    private static final MethodHandle WRITE_TIME;
+    private static final MethodHandle CURSOR;
+    private static final MethodHandle CURSOR_KEY;
+    private static final MethodHandle RELEASE;
+    private static final MethodHandle SHADOW;
+    private static final MethodHandle SHADOW_KEY;
+    private static final MethodHandle INDEX;
+    private static final MethodHandle INDEX_PUT;
+    private static final MethodHandle INDEX_GET;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> quicksort = Class.forName("Quicksort");
+            Class<?> policy = Class.forName("ReplacementPolicy");
+            Class<?> pool = Class.forName("BufferPool");
+            Class<?> adt = Class.forName("BufferPoolADT");
+            Class<?> options = Class.forName("SortOptions");
+            Class<?> sorter = Class.forName("Sorter");
+            Class<?> engine = Class.forName("SortEngine");
+            Class<?> cursor = Class.forName("BlockCursor");
+            Class<?> shadow = Class.forName("KeyShadow");
+            Class<?> index = Class.forName("BlockIndex");
+            GENERATE = lookup.findStatic(quicksort, "generateFile", MethodType
+                .methodType(void.class, String.class, String.class,
+                    char.class));
+            POLICY = generic(lookup.findStatic(policy, "forName", MethodType
+                .methodType(policy, String.class, int.class)));
+            POOL = generic(lookup.findConstructor(pool, MethodType.methodType(
+                void.class, String.class, int.class, policy)));
+            GET_BYTES = generic(lookup.findVirtual(pool, "getBytes", MethodType
+                .methodType(void.class, byte[].class, int.class, long.class)));
+            INSERT = generic(lookup.findVirtual(pool, "insert", MethodType
+                .methodType(void.class, byte[].class, int.class, long.class)));
+            CLOSE_POOL = generic(lookup.findVirtual(adt, "close", MethodType
+                .methodType(void.class)));
+            HIT = generic(lookup.findVirtual(policy, "hit", MethodType
+                .methodType(void.class, int.class)));
+            ADMIT = generic(lookup.findVirtual(policy, "admit", MethodType
+                .methodType(void.class, int.class, long.class)));
+            VICTIM = generic(lookup.findVirtual(policy, "victim", MethodType
+                .methodType(int.class)));
+            PARSE = generic(lookup.findStatic(options, "parse", MethodType
+                .methodType(options, String[].class, int.class)));
+            SORTER = generic(lookup.findConstructor(sorter, MethodType
+                .methodType(void.class, String.class, int.class, String.class,
+                    options)));
+            ENGINE = generic(lookup.findStatic(engine, "create", MethodType
+                .methodType(engine, String.class, int.class, String.class,
+                    options)));
+            GET_POOL = generic(lookup.findVirtual(sorter, "getPool", MethodType
+                .methodType(adt)));
+            GET_KEY = generic(lookup.findVirtual(sorter, "getKey", MethodType
+                .methodType(int.class, long.class)));
+            PARTITION = generic(lookup.findVirtual(sorter, "partition",
+                MethodType.methodType(long.class, adt, long.class, long.class,
+                    int.class)));
+            WRITE_TIME = generic(lookup.findVirtual(engine, "writeTime",
+                MethodType.methodType(void.class)));
+            CURSOR = generic(lookup.findConstructor(cursor, MethodType
+                .methodType(void.class, pool)));
+            CURSOR_KEY = generic(lookup.findVirtual(cursor, "key", MethodType
+                .methodType(int.class, long.class)));
+            RELEASE = generic(lookup.findVirtual(cursor, "release", MethodType
+                .methodType(void.class)));
+            SHADOW = generic(lookup.findConstructor(shadow, MethodType
+                .methodType(void.class, adt, long.class, int.class)));
+            SHADOW_KEY = generic(lookup.findVirtual(shadow, "key", MethodType
+                .methodType(int.class, long.class)));
+            INDEX = generic(lookup.findConstructor(index, MethodType
+                .methodType(void.class, int.class)));
+            INDEX_PUT = generic(lookup.findVirtual(index, "put", MethodType
+                .methodType(void.class, long.class, int.class)));
+            INDEX_GET = generic(lookup.findVirtual(index, "get", MethodType
+                .methodType(int.class, long.class)));
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Project() {
+    }
+
+
+    /**
+     * Retypes a handle so that every sorter class in its type is Object.
+     *
+     * @param handle
+     *            the handle
+     * @return the handle with Object for the sorter's classes
+     */
+    private static MethodHandle generic(MethodHandle handle) {
+        MethodType type = handle.type();
+        for (int i = 0; i < type.parameterCount(); i++) {
+            if (type.parameterType(i).getPackageName().isEmpty()) {
+                type = type.changeParameterType(i, Object.class);
+            }
+        }
+        if (type.returnType().getPackageName().isEmpty()) {
+            type = type.changeReturnType(Object.class);
+        }
+        return handle.asType(type);
+    }
+
+
+    /**
+     * Generates a data file with Quicksort.generateFile.
+     *
+     * @param name
+     *            the name of the file
+     * @param blocks
+     *            the number of blocks
+     * @param format
+     *            'a' for few distinct keys, 'b' for random keys
+     * @throws Throwable
+     *             whatever the generator throws
+     */
+    public static void generate(String name, int blocks, char format)
+        throws Throwable {
+        GENERATE.invokeExact(name, String.valueOf(blocks), format);
+    }
+
+
+    /**
+     * Creates a replacement policy.
+     *
+     * @param name
+     *            "lru", "clock" or "2q"
+     * @param frames
+     *            the number of frames it manages
+     * @return the policy
+     * @throws Throwable
+     *             if the name is unknown
+     */
+    public static Object policy(String name, int frames) throws Throwable {
+        return (Object)POLICY.invokeExact(name, frames);
+    }
+
+
+    /**
+     * Opens a BufferPool over a file.
+     *
+     * @param file
+     *            the name of the file
+     * @param buffers
+     *            the number of buffers
+     * @param policy
+     *            the name of the replacement policy
+     * @return the pool
+     * @throws Throwable
+     *             if the pool cannot be created
+     */
+    public static Object pool(String file, int buffers, String policy)
+        throws Throwable {
+        return (Object)POOL.invokeExact(file, buffers, policy(policy,
+            buffers));
+    }
+
+
+    /**
+     * Calls BufferPool.getBytes.
+     *
+     * @param pool
+     *            the pool
+     * @param space
+     *            the array to copy into
+     * @param size
+     *            the number of bytes
+     * @param ind
+     *            the index of the first record
+     * @throws Throwable
+     *             whatever the pool throws
+     */
+    public static void getBytes(Object pool, byte[] space, int size, long ind)
+        throws Throwable {
+        GET_BYTES.invokeExact(pool, space, size, ind);
+    }
+
+
+    /**
+     * Calls BufferPool.insert.
+     *
+     * @param pool
+     *            the pool
+     * @param space
+     *            the array to copy from
+     * @param size
+     *            the number of bytes
+     * @param ind
+     *            the index of the first record
+     * @throws Throwable
+     *             whatever the pool throws
+     */
+    public static void insert(Object pool, byte[] space, int size, long ind)
+        throws Throwable {
+        INSERT.invokeExact(pool, space, size, ind);
+    }
+
+
+    /**
+     * Closes a pool without flushing it.
+     *
+     * @param pool
+     *            the pool
+     * @throws Throwable
+     *             if the file cannot be closed
+     */
+    public static void close(Object pool) throws Throwable {
+        CLOSE_POOL.invokeExact(pool);
+    }
+
+
+    /**
+     * Calls ReplacementPolicy.hit.
+     *
+     * @param policy
+     *            the policy
+     * @param frame
+     *            the frame that was hit
+     * @throws Throwable
+     *             whatever the policy throws
+     */
+    public static void hit(Object policy, int frame) throws Throwable {
+        HIT.invokeExact(policy, frame);
+    }
+
+
+    /**
+     * Calls ReplacementPolicy.admit.
+     *
+     * @param policy
+     *            the policy
+     * @param frame
+     *            the frame given a new block
+     * @param block
+     *            the block
+     * @throws Throwable
+     *             whatever the policy throws
+     */
+    public static void admit(Object policy, int frame, long block)
+        throws Throwable {
+        ADMIT.invokeExact(policy, frame, block);
+    }
+
+
+    /**
+     * Calls ReplacementPolicy.victim.
+     *
+     * @param policy
+     *            the policy
+     * @return the frame to evict
+     * @throws Throwable
+     *             whatever the policy throws
+     */
+    public static int victim(Object policy) throws Throwable {
+        return (int)VICTIM.invokeExact(policy);
+    }
+
+
+    /**
+     * Creates a Sorter.
+     *
+     * @param file
+     *            the name of the file to sort
+     * @param buffers
+     *            the number of buffers
+     * @param stats
+     *            the name of the statistics file
+     * @param options
+     *            options in the command line syntax, such as "--memory=0"
+     * @return the sorter
+     * @throws Throwable
+     *             if the file cannot be opened or an option is invalid
+     */
+    public static Object sorter(
+        String file,
+        int buffers,
+        String stats,
+        String... options)
+        throws Throwable {
+        Object parsed = (Object)PARSE.invokeExact(options, 0);
+        return (Object)SORTER.invokeExact(file, buffers, stats, parsed);
+    }
+
+
+    /**
+     * Creates the engine SortEngine.create selects for the options, as the
+     * command line does.
+     *
+     * @param file
+     *            the name of the file to sort
+     * @param buffers
+     *            the number of buffers
+     * @param stats
+     *            the name of the statistics file
+     * @param options
+     *            options in the command line syntax, such as "--threads=4"
+     * @return the engine
+     * @throws Throwable
+     *             if the file cannot be opened or an option is invalid
+     */
+    public static Object engine(
+        String file,
+        int buffers,
+        String stats,
+        String... options)
+        throws Throwable {
+        Object parsed = (Object)PARSE.invokeExact(options, 0);
+        return (Object)ENGINE.invokeExact(file, buffers, stats, parsed);
+    }
+
+
+    /**
+     * Calls Sorter.getPool.
+     *
+     * @param sorter
+     *            the sorter
+     * @return its pool
+     * @throws Throwable
+     *             never
+     */
+    public static Object getPool(Object sorter) throws Throwable {
+        return (Object)GET_POOL.invokeExact(sorter);
+    }
+
+
+    /**
+     * Calls Sorter.getKey.
+     *
+     * @param sorter
+     *            the sorter
+     * @param ind
+     *            the index of the record
+     * @return its key
+     * @throws Throwable
+     *             whatever the pool throws
+     */
+    public static int getKey(Object sorter, long ind) throws Throwable {
+        return (int)GET_KEY.invokeExact(sorter, ind);
+    }
+
+
+    /**
+     * Calls Sorter.partition.
+     *
+     * @param sorter
+     *            the sorter
+     * @param pool
+     *            its pool
+     * @param left
+     *            the first index
+     * @param right
+     *            the last index
+     * @param pivot
+     *            the pivot key
+     * @return the partition index
+     * @throws Throwable
+     *             whatever the pool throws
+     */
+    public static long partition(
+        Object sorter,
+        Object pool,
+        long left,
+        long right,
+        int pivot)
+        throws Throwable {
+        return (long)PARTITION.invokeExact(sorter, pool, left, right, pivot);
+    }
+
+
+    /**
+     * Calls SortEngine.writeTime, which sorts the file and writes its
+     * statistics.
+     *
+     * @param sorter
+     *            the sorter or engine
+     * @throws Throwable
+     *             if there is an issue with I/O operations
+     */
+    public static void sort(Object sorter) throws Throwable {
+        WRITE_TIME.invokeExact(sorter);
+    }
+
+
+    /**
+     * Creates a BlockCursor.
+     *
+     * @param pool
+     *            the BufferPool to read through
+     * @return the cursor
+     * @throws Throwable
+     *             never
+     */
+    public static Object cursor(Object pool) throws Throwable {
+        return (Object)CURSOR.invokeExact(pool);
+    }
+
+
+    /**
+     * Calls BlockCursor.key.
+     *
+     * @param cursor
+     *            the cursor
+     * @param ind
+     *            the index of the record
+     * @return its key
+     * @throws Throwable
+     *             whatever the pool throws
+     */
+    public static int cursorKey(Object cursor, long ind) throws Throwable {
+        return (int)CURSOR_KEY.invokeExact(cursor, ind);
+    }
+
+
+    /**
+     * Calls BlockCursor.release.
+     *
+     * @param cursor
+     *            the cursor
+     * @throws Throwable
+     *             never
+     */
+    public static void release(Object cursor) throws Throwable {
+        RELEASE.invokeExact(cursor);
+    }
+
+
+    /**
+     * Creates a KeyShadow.
+     *
+     * @param pool
+     *            the pool to page keys in from
+     * @param records
+     *            the number of records in the file
+     * @param blocks
+     *            the number of blocks of keys it holds
+     * @return the shadow
+     * @throws Throwable
+     *             if the size is invalid
+     */
+    public static Object shadow(Object pool, long records, int blocks)
+        throws Throwable {
+        return (Object)SHADOW.invokeExact(pool, records, blocks);
+    }
+
+
+    /**
+     * Calls KeyShadow.key.
+     *
+     * @param shadow
+     *            the shadow
+     * @param ind
+     *            the index of the record
+     * @return its key
+     * @throws Throwable
+     *             whatever the pool throws
+     */
+    public static int shadowKey(Object shadow, long ind) throws Throwable {
+        return (int)SHADOW_KEY.invokeExact(shadow, ind);
+    }
+
+
+    /**
+     * Creates a BlockIndex.
+     *
+     * @param capacity
+     *            the number of blocks it will hold
+     * @return the index
+     * @throws Throwable
+     *             never
+     */
+    public static Object index(int capacity) throws Throwable {
+        return (Object)INDEX.invokeExact(capacity);
+    }
+
+
+    /**
+     * Calls BlockIndex.put.
+     *
+     * @param index
+     *            the index
+     * @param block
+     *            the block id
+     * @param frame
+     *            the frame holding it
+     * @throws Throwable
+     *             never
+     */
+    public static void indexPut(Object index, long block, int frame)
+        throws Throwable {
+        INDEX_PUT.invokeExact(index, block, frame);
+    }
+
+
+    /**
+     * Calls BlockIndex.get.
+     *
+     * @param index
+     *            the index
+     * @param block
+     *            the block id
+     * @return the frame holding it, or -1
+     * @throws Throwable
+     *             never
+     */
+    public static int indexGet(Object index, long block) throws Throwable {
+        return (int)INDEX_GET.invokeExact(index, block);
+    }
+}
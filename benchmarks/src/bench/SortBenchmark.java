@@ -0,0 +1,143 @@
+package bench;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The SortBenchmark class times whole-file sorts with the writeTime of the
+ * engine the command line would pick, which includes flushing the pool and
+ * appending the statistics. Every measurement is a single shot on a fresh
+ * copy of the same generated data. The options parameter is passed as on
+ * the command line, followed by --threads; by default the in-memory
+ * shortcut is turned off so that the quicksort runs through the pool at
+ * every file size, on one thread with Sorter and on more with
+ * ParallelSorter. Thread counts above the number of processors are
+ * refused in setup, so JMH reports them as failed rather than timing an
+ * oversubscribed run; list larger counts with -p threads on larger
+ * machines. The full matrix takes hours at the larger sizes; narrow it
+ * with -p, for example -p blocks=1000 -p buffers=16.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SortBenchmark {
+
+    /**
+     * The number of blocks in the file.
+     */
+    @Param({ "1", "10", "100", "1000", "10000" })
+    public int blocks;
+
+    /**
+     * The number of buffers in the pool.
+     */
+    @Param({ "4", "16", "64" })
+    public int buffers;
+
+    /**
+     * The FileGenerator format: "a" for few distinct keys, "b" for random
+     * keys.
+     */
+    @Param({ "a", "b" })
+    public String format;
+
+    /**
+     * Sort options, separated by spaces.
+     */
+    @Param({ "--memory=0" })
+    public String options;
+
+    /**
+     * The number of sorting threads.
+     */
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    private Path directory;
+    private byte[] data;
+    private String file;
+    private String stats;
+    private Object sorter;
+
+    /**
+     * Generates the data once for all measurements.
+     *
+     * @throws Throwable
+     *             if the file cannot be generated, or there are more
+     *             threads than processors
+     */
+    @Setup(Level.Trial)
+    public void generate() throws Throwable {
+        int processors = Runtime.getRuntime().availableProcessors();
+        if (threads > processors) {
+            throw new IllegalStateException(threads + " threads on "
+                + processors + " processors");
+        }
+        directory = Files.createTempDirectory("sort");
+        file = directory.resolve("sort.bin").toString();
+        stats = directory.resolve("stats.txt").toString();
+        Project.generate(file, blocks, format.charAt(0));
+        data = Files.readAllBytes(new File(file).toPath());
+    }
+
+
+    /**
+     * Restores the data and opens a sorter over it.
+     *
+     * @throws Throwable
+     *             if the file cannot be written or opened
+     */
+    @Setup(Level.Iteration)
+    public void restore() throws Throwable {
+        Files.write(new File(file).toPath(), data);
+        String line = options.isEmpty()
+            ? "--threads=" + threads
+            : options + " --threads=" + threads;
+        sorter = Project.engine(file, buffers, stats, line.split(" "));
+    }
+
+
+    /**
+     * Deletes the files.
+     */
+    @TearDown(Level.Trial)
+    public void delete() {
+        for (File each : directory.toFile().listFiles()) {
+            each.delete();
+        }
+        directory.toFile().delete();
+    }
+
+
+    /**
+     * Sorts the file.
+     *
+     * @throws Throwable
+     *             if there is an issue with I/O operations
+     */
+    @Benchmark
+    public void sort() throws Throwable {
+        Project.sort(sorter);
+    }
+}
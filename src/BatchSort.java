@@ -0,0 +1,194 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The BatchSort class sorts many files in one JVM, so that a batch of small
+ * jobs pays for JVM startup and JIT warm-up once. Jobs run on a fixed pool
+ * of worker threads and share one budget of buffer frames: each running job
+ * gets an equal share of the budget, or fewer frames if its file has fewer
+ * blocks, so the jobs running at once never hold more frames than the
+ * budget. A job sorted in memory or by merging takes its share as its
+ * memory instead of as frames. The budget counts frames and shares only:
+ * each job also holds a few blocks of fixed working buffers, so the
+ * options that allocate memory in proportion to a setting or to the file,
+ * outside the share, are refused. Those are a write-behind queue, a
+ * prefetcher, a key shadow, a presort of pool-sized chunks, an explicit
+ * memory budget, the radix engine and an output file. Every job writes its
+ * statistics to its own file.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class BatchSort {
+    private int frames;
+    private int workers;
+    private SortOptions options;
+    private AtomicInteger failures = new AtomicInteger();
+
+    /**
+     * Constructor for the BatchSort class.
+     *
+     * @param frames
+     *            the number of buffer frames all running jobs may use
+     * @param workers
+     *            the number of jobs that may run at once
+     * @param options
+     *            the optional settings of every sort
+     * @throws IllegalArgumentException
+     *             if the budget or the number of workers is not positive,
+     *             or an option would allocate memory outside the share of
+     *             a job
+     */
+    public BatchSort(int frames, int workers, SortOptions options) {
+        if (frames < 1 || workers < 1) {
+            throw new IllegalArgumentException(
+                "The budget and the number of workers must be positive");
+        }
+        if (options.getOutput() != null) {
+            throw new IllegalArgumentException(
+                "The jobs of a batch cannot share one output file");
+        }
+        if (options.getWriteBehind() > 0 || options.getPrefetch() > 0
+            || options.getShadow() > 0 || options.getMemory() > 0
+            || options.getPresort().equals("pool") || options.getEngine()
+                .equals("radix")) {
+            throw new IllegalArgumentException("A write-behind queue, a "
+                + "prefetcher, a key shadow, a pool presort, a memory budget "
+                + "and the radix engine take memory outside the budget of a "
+                + "batch");
+        }
+        this.frames = frames;
+        this.workers = Math.min(workers, frames);
+        this.options = options;
+    }
+
+
+    /**
+     * Gets the number of frames a job may use: its share of the budget, but
+     * no more than its file has blocks.
+     *
+     * @param dataFileName
+     *            the name of the file of the job
+     * @return the number of frames, at least 1
+     */
+    public int framesFor(String dataFileName) {
+        long blocks = (new File(dataFileName).length() + BufferPool.BUFFERSIZE
+            - 1) / BufferPool.BUFFERSIZE;
+        return (int)Math.max(1, Math.min(blocks, frames / workers));
+    }
+
+
+    /**
+     * Sorts every job and waits for all of them. A failed job is reported
+     * on the error stream and does not stop the others.
+     *
+     * @param jobs
+     *            the jobs, each a data file name followed by a statistics
+     *            file name
+     * @return the number of jobs that failed
+     * @throws InterruptedException
+     *             if interrupted while waiting for the jobs
+     */
+    public int run(List<String[]> jobs) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        for (String[] job : jobs) {
+            executor.execute(() -> sort(job[0], job[1]));
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        return failures.get();
+    }
+
+
+    private void sort(String dataFileName, String statFileName) {
+        try {
+            SortEngine.create(dataFileName, framesFor(dataFileName),
+                statFileName, options).writeTime();
+        }
+        catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            System.err.println("Sort of " + dataFileName + " failed: " + e);
+        }
+    }
+
+
+    /**
+     * Reads jobs from a reader, one per line: a data file name and a
+     * statistics file name separated by white space. Blank lines are
+     * skipped.
+     *
+     * @param reader
+     *            the reader to read jobs from
+     * @return the jobs
+     * @throws IOException
+     *             if a line cannot be read or holds no two names
+     */
+    public static List<String[]> readJobs(BufferedReader reader)
+        throws IOException {
+        List<String[]> jobs = new ArrayList<String[]>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] job = line.split("\\s+");
+            if (job.length != 2) {
+                throw new IOException("Malformed job: " + line);
+            }
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+
+    /**
+     * The main method for batch sorting.
+     *
+     * @param args
+     *            Command line parameters: the frame budget, the number of
+     *            workers, optional settings as for Quicksort, and then pairs
+     *            of data file and statistics file names. Without pairs, the
+     *            jobs are read from standard input, one pair per line.
+     * @throws IOException
+     *             if the jobs cannot be read
+     * @throws InterruptedException
+     *             if interrupted while waiting for the jobs
+     */
+    public static void main(String[] args)
+        throws IOException,
+        InterruptedException {
+        int frames = Integer.parseInt(args[0]);
+        int workers = Integer.parseInt(args[1]);
+        int first = 2;
+        while (first < args.length && args[first].startsWith("--")) {
+            first++;
+        }
+        String[] settings = new String[first - 2];
+        System.arraycopy(args, 2, settings, 0, settings.length);
+        SortOptions options = SortOptions.parse(settings, 0);
+        List<String[]> jobs = new ArrayList<String[]>();
+        if (first == args.length) {
+            jobs = readJobs(new BufferedReader(new InputStreamReader(
+                System.in)));
+        }
+        else if ((args.length - first) % 2 != 0) {
+            throw new IllegalArgumentException(
+                "Every data file needs a statistics file");
+        }
+        for (int i = first; i < args.length; i += 2) {
+            jobs.add(new String[] { args[i], args[i + 1] });
+        }
+        int failed = new BatchSort(frames, workers, options).run(jobs);
+        System.out.println("Sorted " + (jobs.size() - failed) + " of " + jobs
+            .size() + " files");
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * The BlockCursor class keeps one block of a BufferPool pinned while records
+ * of that block are read and written, so a scan in either direction pays
+ * for one pool lookup per block instead of one per record. Moving to a
+ * record of another block releases the old pin and pins the new block.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class BlockCursor {
+    private static final int RECORDS = BufferPool.BUFFERSIZE
+        / BufferPoolADT.RECORDSIZE;
+    private BufferPool pool;
+    private Buffer frame;
+    private long first;
+
+    /**
+     * Constructor for the BlockCursor class. The cursor holds no pin until
+     * it is first used.
+     *
+     * @param pool
+     *            the pool to read and write through
+     */
+    public BlockCursor(BufferPool pool) {
+        this.pool = pool;
+        frame = null;
+        first = -1;
+    }
+
+
+    /**
+     * Get the key of a record.
+     *
+     * @param ind
+     *            the index of the record
+     * @return the key of the record
+     */
+    public int key(long ind) {
+        seek(ind);
+        return frame.getKey((int)(ind - first) * BufferPoolADT.RECORDSIZE);
+    }
+
+
+    /**
+     * Get a record, packed big-endian into an int.
+     *
+     * @param ind
+     *            the index of the record
+     * @return the packed record
+     */
+    public int record(long ind) {
+        seek(ind);
+        return frame.getRecord((int)(ind - first)
+            * BufferPoolADT.RECORDSIZE);
+    }
+
+
+    /**
+     * Overwrite a record.
+     *
+     * @param ind
+     *            the index of the record
+     * @param record
+     *            the packed record
+     */
+    public void setRecord(long ind, int record) {
+        seek(ind);
+        frame.setRecord((int)(ind - first) * BufferPoolADT.RECORDSIZE,
+            record);
+    }
+
+
+    /**
+     * Swap a record under this cursor with a record under another cursor.
+     * Both blocks are pinned while the records are exchanged.
+     *
+     * @param ind
+     *            the index of the record under this cursor
+     * @param other
+     *            the other cursor
+     * @param otherInd
+     *            the index of the record under the other cursor
+     */
+    public void swap(long ind, BlockCursor other, long otherInd) {
+        int mine = record(ind);
+        int theirs = other.record(otherInd);
+        setRecord(ind, theirs);
+        other.setRecord(otherInd, mine);
+    }
+
+
+    /**
+     * Release the pin held by the cursor, if any.
+     */
+    public void release() {
+        if (frame != null) {
+            pool.unpin(frame);
+            frame = null;
+            first = -1;
+        }
+    }
+
+
+    private void seek(long ind) {
+        if (frame == null || ind < first || ind >= first + RECORDS) {
+            release();
+            frame = pool.pin(ind / RECORDS);
+            first = ind - ind % RECORDS;
+        }
+    }
+}
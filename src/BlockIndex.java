@@ -0,0 +1,137 @@
+import java.util.Arrays;
+
+/**
+ * The BlockIndex class maps block ids to buffer pool frames. It is an
+ * open-addressing hash table with linear probing over primitive arrays, so a
+ * lookup never walks the replacement list and never boxes a key.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class BlockIndex {
+    private static final long EMPTY = -1;
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * Constructor for the BlockIndex class. The table is sized so that it
+     * stays at most half full when holding the given number of blocks.
+     *
+     * @param capacity
+     *            the maximum number of blocks that will be indexed
+     */
+    public BlockIndex(int capacity) {
+        int tableSize = 2;
+        while (tableSize < capacity * 2) {
+            tableSize <<= 1;
+        }
+        keys = new long[tableSize];
+        values = new int[tableSize];
+        mask = tableSize - 1;
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+
+    /**
+     * Get the frame holding the given block.
+     *
+     * @param block
+     *            the block id to look up
+     * @return the frame of the block, or -1 if it is not indexed
+     */
+    public int get(long block) {
+        int slot = slot(block);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == block) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+
+    /**
+     * Map a block to a frame, replacing any earlier mapping of the block.
+     *
+     * @param block
+     *            the block id
+     * @param frame
+     *            the frame holding the block
+     */
+    public void put(long block, int frame) {
+        int slot = slot(block);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == block) {
+                values[slot] = frame;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = block;
+        values[slot] = frame;
+        size++;
+    }
+
+
+    /**
+     * Remove a block from the index. Later entries of the probe run are
+     * shifted back so that no tombstones are left behind.
+     *
+     * @param block
+     *            the block id to remove
+     * @return the frame the block was mapped to, or -1 if it was not indexed
+     */
+    public int remove(long block) {
+        int slot = slot(block);
+        while (keys[slot] != block) {
+            if (keys[slot] == EMPTY) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int frame = values[slot];
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        size--;
+        return frame;
+    }
+
+
+    /**
+     * Get the number of indexed blocks.
+     *
+     * @return the number of indexed blocks
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Remove every block from the index.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+
+    private int slot(long block) {
+        long hash = block * 0x9E3779B97F4A7C15L;
+        return ((int)(hash >>> 32) ^ (int)hash) & mask;
+    }
+}
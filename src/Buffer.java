@@ -1,27 +1,49 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 /**
- * The Buffer class for managing buffer data and state.
- * 
+ * The Buffer class for managing buffer data and state. A buffer is one frame
+ * of the pool: a fixed slice of the pool's byte arena that is reused for
+ * whichever block is read into the frame. Keys and records are decoded in
+ * place through big-endian byte array views, which neither copy nor
+ * allocate.
+ *
  * @author Shubham Laxmikant Deshmukh
  * @version v1
  */
 public class Buffer {
+    private static final VarHandle KEYS = MethodHandles
+        .byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle RECORDS = MethodHandles
+        .byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
     private byte[] buffer;
+    private int offset;
+    private ByteBuffer view;
     private boolean dirty;
-    private int currInd;
+    private long currInd;
+    private int frame;
+    private int pinCount;
 
     /**
-     * Constructor for the Buffer class.
+     * Constructor for the Buffer class. The buffer holds no block until it
+     * is given one with setIndex.
      *
-     * @param ind
-     *            the index of the buffer
      * @param array
-     *            the input byte array
+     *            the byte arena of the pool
+     * @param offset
+     *            the offset of the frame in the arena
+     * @param frame
+     *            the pool frame the buffer occupies
      */
-    public Buffer(int ind, byte[] array) {
+    public Buffer(byte[] array, int offset, int frame) {
         buffer = array;
+        this.offset = offset;
+        view = ByteBuffer.wrap(array, offset, BufferPool.BUFFERSIZE).slice();
         dirty = false;
-        currInd = ind;
-
+        currInd = -1;
+        this.frame = frame;
     }
 
 
@@ -30,13 +52,35 @@ public class Buffer {
      *
      * @return the index of the buffer
      */
-    public int getIndex() {
+    public long getIndex() {
         return currInd;
     }
 
 
     /**
-     * Get the byte array stored in the buffer.
+     * Set the index of the block held by the buffer.
+     *
+     * @param ind
+     *            the index of the block
+     */
+    public void setIndex(long ind) {
+        currInd = ind;
+    }
+
+
+    /**
+     * Get the pool frame the buffer occupies.
+     *
+     * @return the frame of the buffer
+     */
+    public int getFrame() {
+        return frame;
+    }
+
+
+    /**
+     * Get the byte array stored in the buffer. The buffer's block starts at
+     * getOffset in this array.
      *
      * @return the byte array in the buffer
      */
@@ -45,6 +89,27 @@ public class Buffer {
     }
 
 
+    /**
+     * Get a ByteBuffer over the buffer's block, for channel I/O. The same
+     * view is returned every time.
+     *
+     * @return the view of the block
+     */
+    public ByteBuffer getView() {
+        return view;
+    }
+
+
+    /**
+     * Get the offset of the buffer's block in its byte array.
+     *
+     * @return the offset of the block
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+
     /**
      * Get the dirty status of the buffer.
      *
@@ -64,4 +129,78 @@ public class Buffer {
     public void setDirtyStatus(boolean input) {
         dirty = input;
     }
+
+
+    /**
+     * Get the number of cursors that currently pin the buffer. A pinned
+     * buffer is never evicted.
+     *
+     * @return the pin count of the buffer
+     */
+    public int getPinCount() {
+        return pinCount;
+    }
+
+
+    /**
+     * Set the number of cursors that currently pin the buffer.
+     *
+     * @param input
+     *            the new pin count
+     */
+    public void setPinCount(int input) {
+        pinCount = input;
+    }
+
+
+    /**
+     * Get the key of the record at the given offset.
+     *
+     * @param offset
+     *            the byte offset of the record in the buffer
+     * @return the key of the record
+     */
+    public int getKey(int offset) {
+        return decodeKey(buffer, this.offset + offset);
+    }
+
+
+    /**
+     * Decode the key of a record held in a byte array.
+     *
+     * @param bytes
+     *            the array
+     * @param at
+     *            the offset of the record in the array
+     * @return the key of the record
+     */
+    public static int decodeKey(byte[] bytes, int at) {
+        return (short)KEYS.get(bytes, at);
+    }
+
+
+    /**
+     * Get the record at the given offset, packed big-endian into an int.
+     *
+     * @param offset
+     *            the byte offset of the record in the buffer
+     * @return the packed record
+     */
+    public int getRecord(int offset) {
+        return (int)RECORDS.get(buffer, this.offset + offset);
+    }
+
+
+    /**
+     * Set the record at the given offset and mark the buffer dirty.
+     *
+     * @param offset
+     *            the byte offset of the record in the buffer
+     * @param record
+     *            the packed record
+     */
+    public void setRecord(int offset, int record) {
+        RECORDS.set(buffer, this.offset + offset, record);
+        dirty = true;
+    }
 }
@@ -1,22 +1,70 @@
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * The BufferPool class for managing buffer pools and file access.
- * 
+ * The BufferPool class for managing buffer pools and file access. All frames
+ * are slices of one byte arena allocated with the pool, and their Buffer
+ * objects are reused from block to block, so a miss allocates nothing.
+ * Dirty blocks that are contiguous in the file are written together with
+ * one gathering channel write on flush, and on eviction too when
+ * coalescing is enabled. When
+ * prefetching is enabled, misses that continue a forward or backward run of
+ * blocks ask a Prefetcher to read the next blocks in that direction.
+ * Blocks are read with positional channel reads, so several pools may share
+ * one channel, as the shards of a StripedBufferPool do; a pool is still
+ * meant for one thread at a time. Lookups, evictions, bytes moved and the
+ * latencies of misses, reads and writes are counted as the pool runs, and
+ * stats() takes a BufferPoolStats snapshot of them.
+ *
  * @author Shubham Laxmikant Deshmukh
  * @version v1
  */
 public class BufferPool implements BufferPoolADT {
     private RandomAccessFile file;
-    private final static int BUFFERSIZE = 4096;
-    private int readToDisc = 0;
-    private int writeToDisc = 0;
-    private ListLRU<Buffer> list;
+    private FileChannel channel;
+    /**
+     * The size of a block and of a buffer frame, in bytes.
+     */
+    public final static int BUFFERSIZE = 4096;
+    private LongAdder readToDisc = new LongAdder();
+    private LongAdder writeToDisc = new LongAdder();
+    private LongAdder physicalWrites = new LongAdder();
+    private LongAdder hits = new LongAdder();
+    private LongAdder misses = new LongAdder();
+    private LongAdder cleanEvictions = new LongAdder();
+    private LongAdder dirtyEvictions = new LongAdder();
+    private LongAdder bytesRead = new LongAdder();
+    private LongAdder bytesWritten = new LongAdder();
+    private LatencyHistogram missLatency = new LatencyHistogram();
+    private LatencyHistogram readLatency = new LatencyHistogram();
+    private LatencyHistogram writeLatency = new LatencyHistogram();
+    private boolean sharedChannel = false;
+    private ReplacementPolicy policy;
+    private byte[] arena;
+    private Buffer[] frames;
+    private int used = 0;
+    private int pinned = 0;
+    private Buffer spare = null;
+    private BlockIndex index;
+    private WriteBehind writeBehind = null;
+    private Prefetcher prefetcher = null;
+    private boolean coalesce = false;
+    private int prefetchDepth = 0;
+    private long fileBlocks = 0;
+    private long[] recent;
+    private int recentNext = 0;
+    private Buffer[] run;
+    private ByteBuffer[] views;
+    private long[] order;
 
     /**
-     * Constructor for the BufferPool class.
+     * Constructor for the BufferPool class using LRU replacement.
      *
      * @param dataFileName
      *            the path to the file
@@ -24,9 +72,28 @@ public class BufferPool implements BufferPoolADT {
      *            the size of the buffer pool
      */
     public BufferPool(String dataFileName, int numBuffers) {
-        list = new ListLRU<Buffer>(numBuffers);
+        this(dataFileName, numBuffers, new LRUPolicy(numBuffers));
+    }
+
+
+    /**
+     * Constructor for the BufferPool class.
+     *
+     * @param dataFileName
+     *            the path to the file
+     * @param numBuffers
+     *            the size of the buffer pool
+     * @param policy
+     *            the replacement policy choosing which buffer to evict
+     */
+    public BufferPool(
+        String dataFileName,
+        int numBuffers,
+        ReplacementPolicy policy) {
+        allocate(numBuffers, policy);
         try {
             file = new RandomAccessFile(dataFileName, "rw");
+            channel = file.getChannel();
         }
         catch (FileNotFoundException e) {
             e.printStackTrace();
@@ -34,10 +101,45 @@ public class BufferPool implements BufferPoolADT {
     }
 
 
+    /**
+     * Constructor for a BufferPool over a channel shared with other pools.
+     * Closing the pool leaves the channel open.
+     *
+     * @param channel
+     *            the open channel of the file
+     * @param numBuffers
+     *            the size of the buffer pool
+     * @param policy
+     *            the replacement policy choosing which buffer to evict
+     */
+    public BufferPool(
+        FileChannel channel,
+        int numBuffers,
+        ReplacementPolicy policy) {
+        allocate(numBuffers, policy);
+        this.channel = channel;
+        sharedChannel = true;
+    }
+
+
+    private void allocate(int numBuffers, ReplacementPolicy replacement) {
+        policy = replacement;
+        arena = new byte[numBuffers * BUFFERSIZE];
+        frames = new Buffer[numBuffers];
+        for (int i = 0; i < numBuffers; i++) {
+            frames[i] = new Buffer(arena, i * BUFFERSIZE, i);
+        }
+        run = new Buffer[numBuffers];
+        views = new ByteBuffer[numBuffers];
+        order = new long[numBuffers];
+        index = new BlockIndex(numBuffers);
+    }
+
+
     /**
      * Retrieves data from the buffer
      * pool at the specified index and stores it in
-     * the destination.
+     * the destination. The data may span several blocks.
      *
      * @param location
      *            the location to store the retrieved data
@@ -46,44 +148,14 @@ public class BufferPool implements BufferPoolADT {
      * @param ind
      *            the index from which to retrieve the data
      */
-    public void getBytes(byte[] location, int size, int ind) {
-        int position = ind * 4;
-        Buffer buff = searchBuffer(position);
-        if (buff != null) {
-            System.arraycopy(buff.getByte(), position % BUFFERSIZE, location, 0,
-                4);
-        }
-        else {
-            byte[] newByte = new byte[BUFFERSIZE];
-            try {
-                file.seek((position / BUFFERSIZE) * BUFFERSIZE);
-                file.read(newByte);
-                readToDisc++;
-                buff = new Buffer(position / BUFFERSIZE, newByte);
-                System.arraycopy(buff.getByte(), position % BUFFERSIZE,
-                    location, 0, 4);
-                Buffer returned;
-                if (list.isFull()) {
-                    returned = list.get(list.size() - 1);
-                    if (returned.getDirtyStatus()) {
-                        file.seek(returned.getIndex() * BUFFERSIZE);
-                        file.write(returned.getByte());
-                        writeToDisc++;
-                        returned.setDirtyStatus(false);
-                    }
-                    list.removeLast();
-                }
-                list.addition(buff);
-            }
-            catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
+    public void getBytes(byte[] location, int size, long ind) {
+        read(location, 0, size, ind * RECORDSIZE);
     }
 
 
     /**
-     * Inserts data into the buffer pool at the specified index.
+     * Inserts data into the buffer pool at the specified index. The data may
+     * span several blocks.
      *
      * @param source
      *            the source data to insert
@@ -92,59 +164,542 @@ public class BufferPool implements BufferPoolADT {
      * @param ind
      *            the index at which to insert
      */
-    public void insert(byte[] source, int size, int ind) {
-        int position = ind * 4;
+    public void insert(byte[] source, int size, long ind) {
+        write(source, 0, size, ind * RECORDSIZE);
+    }
+
+
+    /**
+     * Copies bytes from the pool, starting at a byte position of the file,
+     * into part of an array. The bytes may span several blocks.
+     *
+     * @param location
+     *            the array to copy into
+     * @param at
+     *            the offset in the array to copy to
+     * @param size
+     *            the number of bytes to copy
+     * @param position
+     *            the byte position in the file to copy from
+     */
+    public void read(byte[] location, int at, int size, long position) {
+        int done = 0;
+        while (done < size) {
+            Buffer buff = access(position + done);
+            int offset = (int)((position + done) % BUFFERSIZE);
+            int length = Math.min(size - done, BUFFERSIZE - offset);
+            System.arraycopy(buff.getByte(), buff.getOffset() + offset,
+                location, at + done, length);
+            done += length;
+        }
+    }
+
+
+    /**
+     * Copies part of an array into the pool, starting at a byte position of
+     * the file. The bytes may span several blocks.
+     *
+     * @param source
+     *            the array to copy from
+     * @param at
+     *            the offset in the array to copy from
+     * @param size
+     *            the number of bytes to copy
+     * @param position
+     *            the byte position in the file to copy to
+     */
+    public void write(byte[] source, int at, int size, long position) {
+        int done = 0;
+        while (done < size) {
+            Buffer buff = access(position + done);
+            int offset = (int)((position + done) % BUFFERSIZE);
+            int length = Math.min(size - done, BUFFERSIZE - offset);
+            System.arraycopy(source, at + done, buff.getByte(), buff
+                .getOffset() + offset, length);
+            buff.setDirtyStatus(true);
+            done += length;
+        }
+    }
+
+
+    /**
+     * Gets a whole record, packed big-endian into an int.
+     *
+     * @param ind
+     *            the index of the record
+     * @return the packed record
+     */
+    public int getRecord(long ind) {
+        long position = ind * RECORDSIZE;
+        return access(position).getRecord((int)(position % BUFFERSIZE));
+    }
+
+
+    /**
+     * Replaces a whole record.
+     *
+     * @param ind
+     *            the index of the record
+     * @param record
+     *            the packed record
+     */
+    public void setRecord(long ind, int record) {
+        long position = ind * RECORDSIZE;
+        access(position).setRecord((int)(position % BUFFERSIZE), record);
+    }
+
+
+    /**
+     * Retrieves a run of records from the buffer pool.
+     *
+     * @param space
+     *            the space to store the records in
+     * @param count
+     *            the number of records to retrieve
+     * @param start
+     *            the index of the first record
+     */
+    public void getRecords(byte[] space, int count, long start) {
+        getBytes(space, count * RECORDSIZE, start);
+    }
+
+
+    /**
+     * Inserts a run of records into the buffer pool.
+     *
+     * @param space
+     *            the records to insert
+     * @param count
+     *            the number of records to insert
+     * @param start
+     *            the index of the first record
+     */
+    public void insertRecords(byte[] space, int count, long start) {
+        insert(space, count * RECORDSIZE, start);
+    }
+
+
+    /**
+     * Swaps two records inside their frames. When both blocks cannot be
+     * resident at once, the first block is looked up again before it is
+     * written.
+     *
+     * @param first
+     *            the index of the first record
+     * @param second
+     *            the index of the second record
+     */
+    public void swapRecords(long first, long second) {
+        long firstPos = first * RECORDSIZE;
+        long secondPos = second * RECORDSIZE;
+        int leftOffset = (int)(firstPos % BUFFERSIZE);
+        int rightOffset = (int)(secondPos % BUFFERSIZE);
+        Buffer left = access(firstPos);
+        int leftRecord = left.getRecord(leftOffset);
+        Buffer right = access(secondPos);
+        int rightRecord = right.getRecord(rightOffset);
+        right.setRecord(rightOffset, leftRecord);
+        if (searchBuffer(firstPos) != left) {
+            left = access(firstPos);
+        }
+        left.setRecord(leftOffset, rightRecord);
+    }
+
+
+    /**
+     * Pins a block in the pool, reading it on a miss. A pinned block stays
+     * resident, and its frame's bytes may be used directly, until every pin
+     * on it is released with unpin.
+     *
+     * @param block
+     *            the block to pin
+     * @return the buffer holding the block
+     */
+    public Buffer pin(long block) {
+        Buffer buff = access(block * BUFFERSIZE);
+        if (buff.getPinCount() == 0) {
+            policy.pin(buff.getFrame());
+            pinned++;
+        }
+        buff.setPinCount(buff.getPinCount() + 1);
+        return buff;
+    }
+
+
+    /**
+     * Releases one pin on a buffer. The buffer becomes evictable again once
+     * its last pin is released.
+     *
+     * @param buff
+     *            the pinned buffer
+     */
+    public void unpin(Buffer buff) {
+        buff.setPinCount(buff.getPinCount() - 1);
+        if (buff.getPinCount() == 0) {
+            policy.unpin(buff.getFrame());
+            pinned--;
+        }
+    }
+
+
+    /**
+     * Gets the number of frames in the pool.
+     *
+     * @return the number of frames
+     */
+    public int capacity() {
+        return frames.length;
+    }
+
+
+    /**
+     * Gets the buffer holding the given byte position, reading it from disk
+     * on a miss.
+     *
+     * @param position
+     *            the byte position in the file
+     * @return the buffer holding the position
+     */
+    private Buffer access(long position) {
         Buffer buff = searchBuffer(position);
-        if (buff != null) {
-            System.arraycopy(source, 0, buff.getByte(), position % BUFFERSIZE,
-                4);
+        if (buff == null) {
+            misses.increment();
+            long start = System.nanoTime();
+            buff = loadBuffer(position / BUFFERSIZE);
+            missLatency.record(System.nanoTime() - start);
+            return buff;
+        }
+        hits.increment();
+        policy.hit(buff.getFrame());
+        return buff;
+    }
+
+
+    /**
+     * Reads a block from disk into a frame, evicting the buffer chosen by the
+     * replacement policy when the pool is full. The evicted buffer is reused
+     * for the new block. If the evicted block cannot be written, it stays
+     * resident and dirty, so that a later flush tries again; if the new
+     * block cannot be read, the frame is left out of the pool as the spare,
+     * which the next load takes before evicting anything. Either way the
+     * new block is not installed and the failure is rethrown.
+     *
+     * @param block
+     *            the block to read
+     * @return the buffer holding the block
+     * @throws UncheckedIOException
+     *             if the evicted block cannot be written or the new block
+     *             cannot be read
+     */
+    private Buffer loadBuffer(long block) {
+        if (pinned == frames.length) {
+            throw new IllegalStateException(
+                "Every buffer in the pool is pinned");
+        }
+        Buffer buff;
+        if (spare != null) {
+            buff = spare;
+            spare = null;
+        }
+        else if (used == frames.length) {
+            buff = frames[policy.victim()];
+            index.remove(buff.getIndex());
+            if (buff.getDirtyStatus()) {
+                dirtyEvictions.increment();
+            }
+            else {
+                cleanEvictions.increment();
+            }
         }
         else {
-            byte[] newByte = new byte[BUFFERSIZE];
+            buff = frames[used++];
+        }
+        if (buff.getDirtyStatus()) {
             try {
-                file.seek((position / BUFFERSIZE) * BUFFERSIZE);
-                file.read(newByte);
-                readToDisc++;
-                buff = new Buffer(position / BUFFERSIZE, newByte);
-                System.arraycopy(source, 0, buff.getByte(), position
-                    % BUFFERSIZE, 4);
-                Buffer returned;
-                if (list.isFull()) {
-                    returned = list.get(list.size() - 1);
-                    if (returned.getDirtyStatus()) {
-                        file.seek(returned.getIndex() * BUFFERSIZE);
-                        file.write(returned.getByte());
-                        writeToDisc++;
-                        returned.setDirtyStatus(false);
-                    }
-                    list.removeLast();
+                if (writeBehind != null) {
+                    writeBehind.submit(buff.getIndex(), buff.getByte(), buff
+                        .getOffset());
+                    writeToDisc.increment();
+                    bytesWritten.add(BUFFERSIZE);
+                }
+                else if (coalesce) {
+                    writeAround(buff);
+                }
+                else {
+                    run[0] = buff;
+                    writeRun(1);
                 }
-                list.addition(buff);
             }
             catch (IOException e) {
-                e.printStackTrace();
+                index.put(buff.getIndex(), buff.getFrame());
+                policy.admit(buff.getFrame(), buff.getIndex());
+                throw new UncheckedIOException(e);
             }
+            buff.setDirtyStatus(false);
         }
-        buff.setDirtyStatus(true);
+        try {
+            if ((writeBehind == null || !writeBehind.lookup(block, buff
+                .getByte(), buff.getOffset())) && (prefetcher == null
+                    || !prefetcher.take(block, buff.getByte(), buff
+                        .getOffset()))) {
+                readBuffer(buff, block);
+            }
+        }
+        catch (IOException e) {
+            spare = buff;
+            throw new UncheckedIOException(e);
+        }
+        buff.setIndex(block);
+        index.put(block, buff.getFrame());
+        policy.admit(buff.getFrame(), block);
+        if (prefetcher != null) {
+            readAhead(block);
+        }
+        return buff;
+    }
+
+
+    /**
+     * Requests the blocks after a missed block when the miss continues a run
+     * of misses. The last few misses are remembered so that a scan is still
+     * recognised while another scan interleaves with it, as the two ends of
+     * a partition do. Blocks that are resident or queued for write-behind
+     * are skipped, since their file contents may be out of date.
+     *
+     * @param block
+     *            the block that was missed
+     */
+    private void readAhead(long block) {
+        int direction = 0;
+        for (int i = 0; i < recent.length; i++) {
+            if (recent[i] == block - 1) {
+                direction = 1;
+            }
+            else if (recent[i] == block + 1) {
+                direction = -1;
+            }
+        }
+        recent[recentNext] = block;
+        recentNext = (recentNext + 1) % recent.length;
+        if (direction == 0) {
+            return;
+        }
+        for (int i = 1; i <= prefetchDepth; i++) {
+            long ahead = block + direction * i;
+            if (ahead < 0 || ahead >= fileBlocks) {
+                break;
+            }
+            if (index.get(ahead) < 0 && (writeBehind == null || !writeBehind
+                .contains(ahead))) {
+                prefetcher.request(ahead);
+            }
+        }
+    }
+
+
+    /**
+     * Reads a block from disk into a buffer with positional reads, which
+     * leave the channel position alone, zero-filling whatever lies past the
+     * end of the file.
+     *
+     * @param buff
+     *            the buffer to read into
+     * @param block
+     *            the block to read
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    private void readBuffer(Buffer buff, long block) throws IOException {
+        long start = System.nanoTime();
+        ByteBuffer view = buff.getView();
+        view.clear();
+        long position = block * BUFFERSIZE;
+        while (view.hasRemaining()) {
+            int count = channel.read(view, position);
+            if (count < 0) {
+                break;
+            }
+            position += count;
+        }
+        Arrays.fill(buff.getByte(), buff.getOffset() + view.position(), buff
+            .getOffset() + BUFFERSIZE, (byte)0);
+        readToDisc.increment();
+        bytesRead.add(view.position());
+        readLatency.record(System.nanoTime() - start);
     }
 
 
     /**
-     * Flushes dirty buffers to disk.
+     * Writes an evicted dirty buffer together with the resident dirty
+     * buffers of the blocks directly before and after it, so that a run of
+     * neighbouring dirty blocks costs one write instead of one per block.
+     *
+     * @param victim
+     *            the dirty buffer being evicted
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    private void writeAround(Buffer victim) throws IOException {
+        long first = victim.getIndex();
+        while (victim.getIndex() - first < frames.length - 1 && isDirty(first
+            - 1)) {
+            first--;
+        }
+        int count = 0;
+        for (long block = first; count < frames.length; block++) {
+            Buffer buff = victim;
+            if (block != victim.getIndex()) {
+                buff = searchBuffer(block * BUFFERSIZE);
+            }
+            if (buff == null || !buff.getDirtyStatus() || buff
+                .getPinCount() > 0) {
+                break;
+            }
+            run[count++] = buff;
+        }
+        writeRun(count);
+    }
+
+
+    private boolean isDirty(long block) {
+        if (block < 0) {
+            return false;
+        }
+        Buffer buff = searchBuffer(block * BUFFERSIZE);
+        return buff != null && buff.getDirtyStatus() && buff
+            .getPinCount() == 0;
+    }
+
+
+    /**
+     * Writes the first count buffers of the run, which hold consecutive
+     * blocks, with gathering writes starting at the first block, and marks
+     * them clean. Gathering writes go through the channel position, so they
+     * hold the channel's lock against pools sharing it.
+     *
+     * @param count
+     *            the number of buffers in the run
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    private void writeRun(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            views[i] = run[i].getView();
+            views[i].clear();
+        }
+        long start = System.nanoTime();
+        synchronized (channel) {
+            channel.position(run[0].getIndex() * BUFFERSIZE);
+            long remaining = (long)count * BUFFERSIZE;
+            while (remaining > 0) {
+                remaining -= channel.write(views, 0, count);
+                physicalWrites.increment();
+            }
+        }
+        writeLatency.record(System.nanoTime() - start);
+        bytesWritten.add((long)count * BUFFERSIZE);
+        for (int i = 0; i < count; i++) {
+            run[i].setDirtyStatus(false);
+            views[i] = null;
+        }
+        writeToDisc.add(count);
+    }
+
+
+    /**
+     * Flushes dirty buffers to disk in file order, merging buffers of
+     * consecutive blocks into single writes. Blocks queued for write-behind
+     * are written first, so that on return the file holds every change.
      *
      * @throws IOException
      *             if there is an issue with I/O operations
      */
     public void flush() throws IOException {
-        Buffer curBuff;
-        for (int i = 0; i < list.size(); i++) {
-            curBuff = list.get(i);
-            if (curBuff.getDirtyStatus()) {
-                file.seek(curBuff.getIndex() * BUFFERSIZE);
-                file.write(curBuff.getByte());
-                writeToDisc++;
+        if (writeBehind != null) {
+            writeBehind.drain();
+        }
+        int dirty = 0;
+        for (int i = 0; i < used; i++) {
+            if (frames[i].getDirtyStatus()) {
+                order[dirty++] = frames[i].getIndex() * frames.length + i;
             }
         }
+        Arrays.sort(order, 0, dirty);
+        int next = 0;
+        while (next < dirty) {
+            int count = 0;
+            do {
+                run[count++] = frames[(int)(order[next++] % frames.length)];
+            }
+            while (next < dirty && frames[(int)(order[next] % frames.length)]
+                .getIndex() == run[count - 1].getIndex() + 1);
+            writeRun(count);
+        }
+    }
+
+
+    /**
+     * Moves the writes of dirty evictions to a background thread. Evictions
+     * then only copy the block into a queue of the given depth.
+     *
+     * @param depth
+     *            the number of evicted blocks that may wait to be written
+     */
+    public void enableWriteBehind(int depth) {
+        writeBehind = new WriteBehind(channel, depth);
+    }
+
+
+    /**
+     * Writes each dirty eviction together with the resident dirty buffers
+     * of the blocks around it. This saves write calls, but neighbours
+     * written early are often dirtied again and written a second time, so
+     * it usually costs more block writes than it saves; it is off unless
+     * enabled here.
+     */
+    public void enableCoalescing() {
+        coalesce = true;
+    }
+
+
+    /**
+     * Reads ahead of sequential scans on a background thread. Up to depth
+     * blocks are requested past each miss that continues a scan, and twice
+     * that many may be staged at once, so that the two scans of a partition
+     * do not crowd each other out.
+     *
+     * @param depth
+     *            the number of blocks to read ahead of a scan
+     * @throws IOException
+     *             if the length of the file cannot be read
+     */
+    public void enablePrefetch(int depth) throws IOException {
+        prefetchDepth = depth;
+        fileBlocks = (channel.size() + BUFFERSIZE - 1) / BUFFERSIZE;
+        recent = new long[4];
+        Arrays.fill(recent, Long.MIN_VALUE);
+        prefetcher = new Prefetcher(channel, 2 * depth);
+    }
+
+
+    /**
+     * Stops the write-behind and prefetch threads, if any, and closes the
+     * file unless its channel is shared. Buffers that were not flushed are
+     * lost.
+     *
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void close() throws IOException {
+        if (prefetcher != null) {
+            prefetcher.close();
+        }
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+        if (!sharedChannel) {
+            file.close();
+        }
     }
 
 
@@ -155,14 +710,23 @@ public class BufferPool implements BufferPoolADT {
      *            the index to search for
      * @return the buffer if found, or null if not found
      */
-    public Buffer searchBuffer(int index) {
-        for (int i = 0; i < list.size(); i++) {
-            Buffer buffer = list.get(i);
-            if (buffer.getIndex() == index / BUFFERSIZE) {
-                return buffer;
-            }
+    public Buffer searchBuffer(long index) {
+        int frame = this.index.get(index / BUFFERSIZE);
+        if (frame < 0) {
+            return null;
         }
-        return null;
+        return frames[frame];
+    }
+
+
+    /**
+     * Gets the replacement policy of the pool, which also holds its hit and
+     * miss statistics.
+     *
+     * @return the replacement policy
+     */
+    public ReplacementPolicy getPolicy() {
+        return policy;
     }
 
 
@@ -173,8 +737,33 @@ public class BufferPool implements BufferPoolADT {
      * @throws IOException
      *             if there is an issue with I/O operations
      */
-    public int getFileLength() throws IOException {
-        return (int)file.length();
+    public long getFileLength() throws IOException {
+        return channel.size();
+    }
+
+
+    /**
+     * Gets the number of lookups that found their block resident.
+     *
+     * @return the number of cache hits
+     */
+    public long cacheHits() {
+        return hits.sum();
+    }
+
+
+    /**
+     * Takes a snapshot of the pool's counters. Blocks read by the
+     * prefetcher count as bytes read, whole.
+     *
+     * @return the snapshot
+     */
+    public BufferPoolStats stats() {
+        long prefetched = prefetcher == null ? 0 : prefetcher.reads();
+        return new BufferPoolStats(hits.sum(), misses.sum(), cleanEvictions
+            .sum(), dirtyEvictions.sum(), bytesRead.sum() + prefetched
+                * BUFFERSIZE, bytesWritten.sum(), missLatency.copy(),
+            readLatency.copy(), writeLatency.copy());
     }
 
 
@@ -183,17 +772,56 @@ public class BufferPool implements BufferPoolADT {
      *
      * @return the number of disk writes
      */
-    public int discWrite() {
-        return writeToDisc;
+    public long discWrite() {
+        return writeToDisc.sum();
     }
 
 
     /**
-     * Gets the number of disk reads.
+     * Gets the number of write calls issued to the file, by the pool and by
+     * its write-behind thread. Since neighbouring blocks are written
+     * together on flush, this is usually smaller than discWrite.
+     *
+     * @return the number of physical write operations
+     */
+    public long physicalWrites() {
+        if (writeBehind != null) {
+            return physicalWrites.sum() + writeBehind.physicalWrites();
+        }
+        return physicalWrites.sum();
+    }
+
+
+    /**
+     * Gets the number of misses served from a block the prefetcher had
+     * already read.
+     *
+     * @return the number of prefetch hits, 0 without prefetching
+     */
+    public long prefetchHits() {
+        return prefetcher == null ? 0 : prefetcher.hits();
+    }
+
+
+    /**
+     * Gets the number of blocks the prefetcher read that were never used.
+     *
+     * @return the number of wasted prefetches, 0 without prefetching
+     */
+    public long prefetchWaste() {
+        return prefetcher == null ? 0 : prefetcher.waste();
+    }
+
+
+    /**
+     * Gets the number of disk reads, including the reads of the prefetcher.
      *
      * @return the number of disk reads
      */
-    public int discRead() {
-        return readToDisc;
+    public long discRead() {
+        if (prefetcher != null) {
+            return readToDisc.sum() + prefetcher.reads();
+        }
+        return readToDisc.sum();
     }
 }
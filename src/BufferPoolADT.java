@@ -1,3 +1,5 @@
+import java.io.IOException;
+
 /**
  * The BufferPoolADT interface for defining buffer pool operations.
  * 
@@ -7,6 +9,11 @@
 
 public interface BufferPoolADT {
 
+    /**
+     * The size of a record, in bytes: a short key followed by a short value.
+     */
+    public static final int RECORDSIZE = 4;
+
     /**
      * Inserts data into the
      * buffer pool at the specified position.
@@ -18,7 +25,7 @@ public interface BufferPoolADT {
      * @param position
      *            the position at which to insert
      */
-    public void insert(byte[] space, int size, int position);
+    public void insert(byte[] space, int size, long position);
 
 
     /**
@@ -33,5 +40,95 @@ public interface BufferPoolADT {
      * @param position
      *            the position from which to retrieve the data
      */
-    public void getBytes(byte[] space, int size, int position);
+    public void getBytes(byte[] space, int size, long position);
+
+
+    /**
+     * Retrieves a run of consecutive records from the buffer pool.
+     *
+     * @param space
+     *            the space to store the records in
+     * @param count
+     *            the number of records to retrieve
+     * @param start
+     *            the index of the first record
+     */
+    public void getRecords(byte[] space, int count, long start);
+
+
+    /**
+     * Inserts a run of consecutive records into the buffer pool.
+     *
+     * @param space
+     *            the records to insert
+     * @param count
+     *            the number of records to insert
+     * @param start
+     *            the index of the first record
+     */
+    public void insertRecords(byte[] space, int count, long start);
+
+
+    /**
+     * Swaps two records in place inside the buffer pool.
+     *
+     * @param first
+     *            the index of the first record
+     * @param second
+     *            the index of the second record
+     */
+    public void swapRecords(long first, long second);
+
+
+    /**
+     * Writes every modified block back to the file.
+     *
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void flush() throws IOException;
+
+
+    /**
+     * Releases the file and any other resources held by the pool. Data that
+     * was not flushed may be lost.
+     *
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void close() throws IOException;
+
+
+    /**
+     * Gets the length of the file.
+     *
+     * @return the length of the file
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public long getFileLength() throws IOException;
+
+
+    /**
+     * Gets the number of lookups served without reading from disk.
+     *
+     * @return the number of cache hits
+     */
+    public long cacheHits();
+
+
+    /**
+     * Gets the number of blocks written to disk.
+     *
+     * @return the number of disk writes
+     */
+    public long discWrite();
+
+
+    /**
+     * Gets the number of blocks read from disk.
+     *
+     * @return the number of disk reads
+     */
+    public long discRead();
 }
@@ -0,0 +1,116 @@
+/**
+ * The BufferPoolMXBean interface is the management view of a BufferPool,
+ * registered with the platform MBean server by BufferPoolMonitor so that a
+ * running sort can be watched from JConsole or any other JMX client. Every
+ * attribute is read from a fresh BufferPoolStats snapshot.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public interface BufferPoolMXBean {
+
+    /**
+     * Gets the number of lookups that found their block resident.
+     *
+     * @return the number of hits
+     */
+    public long getHits();
+
+
+    /**
+     * Gets the number of lookups that had to load their block.
+     *
+     * @return the number of misses
+     */
+    public long getMisses();
+
+
+    /**
+     * Gets the share of lookups that were hits.
+     *
+     * @return the hit ratio, from 0 to 1
+     */
+    public double getHitRatio();
+
+
+    /**
+     * Gets the number of evictions of unmodified blocks.
+     *
+     * @return the number of clean evictions
+     */
+    public long getCleanEvictions();
+
+
+    /**
+     * Gets the number of evictions of modified blocks.
+     *
+     * @return the number of dirty evictions
+     */
+    public long getDirtyEvictions();
+
+
+    /**
+     * Gets the number of bytes read from the file.
+     *
+     * @return the bytes read
+     */
+    public long getBytesRead();
+
+
+    /**
+     * Gets the number of bytes written to the file.
+     *
+     * @return the bytes written
+     */
+    public long getBytesWritten();
+
+
+    /**
+     * Gets the number of blocks read from the file, as BufferPool.discRead
+     * counts them.
+     *
+     * @return the number of disk reads
+     */
+    public long getDiscReads();
+
+
+    /**
+     * Gets the number of blocks written to the file, as BufferPool.discWrite
+     * counts them.
+     *
+     * @return the number of disk writes
+     */
+    public long getDiscWrites();
+
+
+    /**
+     * Gets the median latency of a miss.
+     *
+     * @return the latency in nanoseconds
+     */
+    public long getMissLatencyP50();
+
+
+    /**
+     * Gets the 99th percentile latency of a miss.
+     *
+     * @return the latency in nanoseconds
+     */
+    public long getMissLatencyP99();
+
+
+    /**
+     * Gets the 99th percentile latency of a block read.
+     *
+     * @return the latency in nanoseconds
+     */
+    public long getReadLatencyP99();
+
+
+    /**
+     * Gets the 99th percentile latency of a write.
+     *
+     * @return the latency in nanoseconds
+     */
+    public long getWriteLatencyP99();
+}
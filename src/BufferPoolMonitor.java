@@ -0,0 +1,164 @@
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The BufferPoolMonitor class publishes the statistics of a BufferPool as a
+ * BufferPoolMXBean on the platform MBean server, under the name
+ * "BufferPool:type=BufferPool,name=" followed by the quoted name given.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class BufferPoolMonitor implements BufferPoolMXBean {
+    private BufferPool pool;
+    private ObjectName objectName;
+
+    /**
+     * Constructor for the BufferPoolMonitor class. The monitor is not
+     * visible until it is registered.
+     *
+     * @param pool
+     *            the pool to watch
+     */
+    public BufferPoolMonitor(BufferPool pool) {
+        this.pool = pool;
+    }
+
+
+    /**
+     * Registers the monitor with the platform MBean server.
+     *
+     * @param name
+     *            the name of the pool, such as its file name
+     * @return the object name the monitor was registered under
+     * @throws JMException
+     *             if the name is taken or cannot be registered
+     */
+    public ObjectName register(String name) throws JMException {
+        objectName = new ObjectName("BufferPool:type=BufferPool,name="
+            + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+            objectName);
+        return objectName;
+    }
+
+
+    /**
+     * Removes the monitor from the platform MBean server, if registered.
+     *
+     * @throws JMException
+     *             if the monitor cannot be unregistered
+     */
+    public void unregister() throws JMException {
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+                objectName);
+            objectName = null;
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getHits() {
+        return pool.stats().hits();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getMisses() {
+        return pool.stats().misses();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public double getHitRatio() {
+        return pool.stats().hitRatio();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getCleanEvictions() {
+        return pool.stats().cleanEvictions();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getDirtyEvictions() {
+        return pool.stats().dirtyEvictions();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getBytesRead() {
+        return pool.stats().bytesRead();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getBytesWritten() {
+        return pool.stats().bytesWritten();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getDiscReads() {
+        return pool.discRead();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getDiscWrites() {
+        return pool.discWrite();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getMissLatencyP50() {
+        return pool.stats().missLatency().percentile(50);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getMissLatencyP99() {
+        return pool.stats().missLatency().percentile(99);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getReadLatencyP99() {
+        return pool.stats().readLatency().percentile(99);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getWriteLatencyP99() {
+        return pool.stats().writeLatency().percentile(99);
+    }
+}
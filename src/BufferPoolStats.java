@@ -0,0 +1,180 @@
+/**
+ * The BufferPoolStats class is a snapshot of the counters of a BufferPool:
+ * how its lookups were served, what its evictions cost, how many bytes it
+ * moved, and how long its misses, reads and writes took. The counters are
+ * read one after the other while the pool may keep running, so a snapshot
+ * of a live pool is close to, but not exactly, one instant.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class BufferPoolStats {
+    private final long hits;
+    private final long misses;
+    private final long cleanEvictions;
+    private final long dirtyEvictions;
+    private final long bytesRead;
+    private final long bytesWritten;
+    private final LatencyHistogram missLatency;
+    private final LatencyHistogram readLatency;
+    private final LatencyHistogram writeLatency;
+
+    /**
+     * Constructor for the BufferPoolStats class.
+     *
+     * @param hits
+     *            the lookups that found their block resident
+     * @param misses
+     *            the lookups that had to load their block
+     * @param cleanEvictions
+     *            the evictions of unmodified blocks
+     * @param dirtyEvictions
+     *            the evictions of modified blocks, which had to be written
+     * @param bytesRead
+     *            the bytes read from the file
+     * @param bytesWritten
+     *            the bytes written to the file
+     * @param missLatency
+     *            the latencies of misses, eviction included
+     * @param readLatency
+     *            the latencies of block reads
+     * @param writeLatency
+     *            the latencies of block writes, one per run written
+     */
+    public BufferPoolStats(
+        long hits,
+        long misses,
+        long cleanEvictions,
+        long dirtyEvictions,
+        long bytesRead,
+        long bytesWritten,
+        LatencyHistogram missLatency,
+        LatencyHistogram readLatency,
+        LatencyHistogram writeLatency) {
+        this.hits = hits;
+        this.misses = misses;
+        this.cleanEvictions = cleanEvictions;
+        this.dirtyEvictions = dirtyEvictions;
+        this.bytesRead = bytesRead;
+        this.bytesWritten = bytesWritten;
+        this.missLatency = missLatency;
+        this.readLatency = readLatency;
+        this.writeLatency = writeLatency;
+    }
+
+
+    /**
+     * Gets the number of lookups that found their block resident.
+     *
+     * @return the number of hits
+     */
+    public long hits() {
+        return hits;
+    }
+
+
+    /**
+     * Gets the number of lookups that had to load their block.
+     *
+     * @return the number of misses
+     */
+    public long misses() {
+        return misses;
+    }
+
+
+    /**
+     * Gets the share of lookups that were hits.
+     *
+     * @return the hit ratio, from 0 to 1, or 0 before any lookup
+     */
+    public double hitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double)hits / lookups;
+    }
+
+
+    /**
+     * Gets the number of evictions of unmodified blocks.
+     *
+     * @return the number of clean evictions
+     */
+    public long cleanEvictions() {
+        return cleanEvictions;
+    }
+
+
+    /**
+     * Gets the number of evictions of modified blocks.
+     *
+     * @return the number of dirty evictions
+     */
+    public long dirtyEvictions() {
+        return dirtyEvictions;
+    }
+
+
+    /**
+     * Gets the number of bytes read from the file.
+     *
+     * @return the bytes read
+     */
+    public long bytesRead() {
+        return bytesRead;
+    }
+
+
+    /**
+     * Gets the number of bytes written to the file.
+     *
+     * @return the bytes written
+     */
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+
+    /**
+     * Gets the latencies of misses, from the lookup to the block being
+     * resident, eviction included.
+     *
+     * @return the miss latencies
+     */
+    public LatencyHistogram missLatency() {
+        return missLatency;
+    }
+
+
+    /**
+     * Gets the latencies of block reads from the file.
+     *
+     * @return the read latencies
+     */
+    public LatencyHistogram readLatency() {
+        return readLatency;
+    }
+
+
+    /**
+     * Gets the latencies of writes to the file, one per run of blocks.
+     *
+     * @return the write latencies
+     */
+    public LatencyHistogram writeLatency() {
+        return writeLatency;
+    }
+
+
+    /**
+     * Gets a one-line summary of the snapshot.
+     *
+     * @return the summary
+     */
+    public String toString() {
+        return "hits " + hits + ", misses " + misses + ", evictions "
+            + cleanEvictions + " clean " + dirtyEvictions + " dirty, bytes "
+            + bytesRead + " read " + bytesWritten + " written, miss p50 "
+            + missLatency.percentile(50) + " ns p99 " + missLatency
+                .percentile(99) + " ns";
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * The ClockPolicy class implements second-chance replacement. Frames sit on
+ * a circular dial with a reference bit each; a hit only sets the bit, and
+ * the hand clears bits until it reaches a frame that was not referenced
+ * since its last pass. Pinned frames are passed over.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class ClockPolicy implements ReplacementPolicy {
+    private boolean[] referenced;
+    private boolean[] pinned;
+    private int hand = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Constructor for the ClockPolicy class.
+     *
+     * @param numBuffers
+     *            the number of frames in the pool
+     */
+    public ClockPolicy(int numBuffers) {
+        referenced = new boolean[numBuffers];
+        pinned = new boolean[numBuffers];
+    }
+
+
+    @Override
+    public void hit(int frame) {
+        hits++;
+        referenced[frame] = true;
+    }
+
+
+    @Override
+    public void admit(int frame, long block) {
+        misses++;
+        referenced[frame] = true;
+    }
+
+
+    @Override
+    public void pin(int frame) {
+        pinned[frame] = true;
+    }
+
+
+    @Override
+    public void unpin(int frame) {
+        pinned[frame] = false;
+        referenced[frame] = true;
+    }
+
+
+    @Override
+    public int victim() {
+        while (pinned[hand] || referenced[hand]) {
+            if (!pinned[hand]) {
+                referenced[hand] = false;
+            }
+            hand = (hand + 1) % referenced.length;
+        }
+        int frame = hand;
+        hand = (hand + 1) % referenced.length;
+        return frame;
+    }
+
+
+    @Override
+    public long hits() {
+        return hits;
+    }
+
+
+    @Override
+    public long misses() {
+        return misses;
+    }
+
+
+    @Override
+    public String name() {
+        return "clock";
+    }
+}
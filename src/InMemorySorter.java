@@ -0,0 +1,225 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+
+/**
+ * The InMemorySorter class sorts a file that fits in memory without going
+ * through a buffer pool. The file is read sequentially into one int[] of
+ * big-endian records, sorted in place, which orders records by key since
+ * the key is the high half, and written back in one sequential pass.
+ * Transfers go through a RecordTransfer of STAGING blocks, and are counted
+ * in blocks like the buffer pool's.
+ *
+ * The sort is an American flag sort: a most significant digit radix sort
+ * that counts the records of each byte value of a range, then moves every
+ * record straight into its bucket by following cycles of swaps, and sorts
+ * each bucket by the next byte. It needs no second array, unlike the JDK's
+ * Arrays.sort, whose merging of presorted runs may allocate one the size
+ * of the input; the only memory besides the records is one pair of count
+ * arrays per byte, allocated with the sorter. Ranges of at most SMALL
+ * records are insertion sorted.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class InMemorySorter implements SortEngine {
+    private static final int STAGING = 16;
+    private static final int RADIX = 256;
+    private static final int SMALL = 32;
+    private File statsFile;
+    private String filename;
+    private RecordTransfer transfer;
+    private long records = 0;
+    private int time = 0;
+    private int[][] starts = new int[Integer.BYTES][RADIX + 1];
+    private int[][] next = new int[Integer.BYTES][RADIX];
+
+    /**
+     * Constructor for the InMemorySorter class.
+     *
+     * @param dataFileName
+     *            the name of the file to be sorted
+     * @param statFileName
+     *            the name of the output file for statistics
+     */
+    public InMemorySorter(String dataFileName, String statFileName) {
+        filename = dataFileName;
+        statsFile = new File(statFileName);
+        transfer = new RecordTransfer(dataFileName, STAGING);
+    }
+
+
+    /**
+     * Tells whether a file is small enough to be sorted in memory.
+     *
+     * @param dataFileName
+     *            the name of the file
+     * @param budget
+     *            the number of bytes of memory the sort may use
+     * @return true if the whole file fits in the budget
+     */
+    public static boolean fits(String dataFileName, long budget) {
+        long length = new File(dataFileName).length();
+        return length <= budget && length / BufferPoolADT.RECORDSIZE
+            < Integer.MAX_VALUE - 8;
+    }
+
+
+    /**
+     * Sort the file, measure the time taken and write the statistics.
+     *
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void writeTime() throws IOException {
+        final long start = System.currentTimeMillis();
+        sort();
+        final long end = System.currentTimeMillis();
+        time = (int)(end - start);
+        writeFile(statsFile);
+    }
+
+
+    /**
+     * Write statistics to the specified output file, in the format of
+     * Sorter followed by the number of records sorted in memory. There is
+     * no cache, so the cache hits are always 0.
+     *
+     * @param input
+     *            the output file to write statistics to
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void writeFile(File input) throws IOException {
+        PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(
+            input, true)));
+        writer.println("Sort on " + filename);
+        writer.println("Cache Hits: 0");
+        writer.println("Disk Reads: " + transfer.reads());
+        writer.println("Disk Writes: " + transfer.writes());
+        writer.println("Time is " + time);
+        writer.println("Sorted In Memory: " + records + " records");
+        writer.close();
+    }
+
+
+    /**
+     * Sort the file in place.
+     *
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void sort() throws IOException {
+        RandomAccessFile file = new RandomAccessFile(filename, "rw");
+        FileChannel channel = file.getChannel();
+        records = file.length() / BufferPoolADT.RECORDSIZE;
+        int[] data = new int[(int)records];
+        try {
+            transfer.read(channel, data, 0, data.length, 0);
+            sortRecords(data);
+            transfer.write(channel, data, 0, data.length, 0);
+        }
+        finally {
+            file.close();
+        }
+    }
+
+
+    /**
+     * Sort packed records in place, in the order of Arrays.sort on int.
+     *
+     * @param data
+     *            the records
+     */
+    void sortRecords(int[] data) {
+        flagSort(data, 0, data.length, 0);
+    }
+
+
+    /**
+     * Sort a range by one byte of the records and each bucket by the bytes
+     * after it.
+     *
+     * @param data
+     *            the records
+     * @param from
+     *            the index of the first record of the range
+     * @param to
+     *            the index past the last record of the range
+     * @param level
+     *            the byte to sort by, 0 for the most significant
+     */
+    private void flagSort(int[] data, int from, int to, int level) {
+        if (to - from <= SMALL) {
+            insertionSort(data, from, to);
+            return;
+        }
+        int[] start = starts[level];
+        int[] free = next[level];
+        for (int d = 0; d <= RADIX; d++) {
+            start[d] = 0;
+        }
+        for (int i = from; i < to; i++) {
+            start[digit(data[i], level) + 1]++;
+        }
+        start[0] = from;
+        for (int d = 0; d < RADIX; d++) {
+            start[d + 1] += start[d];
+            free[d] = start[d];
+        }
+        for (int d = 0; d < RADIX; d++) {
+            while (free[d] < start[d + 1]) {
+                int record = data[free[d]];
+                int home = digit(record, level);
+                while (home != d) {
+                    int displaced = data[free[home]];
+                    data[free[home]++] = record;
+                    record = displaced;
+                    home = digit(record, level);
+                }
+                data[free[d]++] = record;
+            }
+        }
+        if (level + 1 < Integer.BYTES) {
+            for (int d = 0; d < RADIX; d++) {
+                if (start[d + 1] - start[d] > 1) {
+                    flagSort(data, start[d], start[d + 1], level + 1);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Get one byte of a record as a bucket number. The sign bit of the
+     * first byte is flipped, so that buckets follow signed order.
+     *
+     * @param record
+     *            the packed record
+     * @param level
+     *            the byte, 0 for the most significant
+     * @return the bucket, from 0 to 255
+     */
+    private static int digit(int record, int level) {
+        int shift = 8 * (Integer.BYTES - 1 - level);
+        int value = (record >>> shift) & 0xFF;
+        return level == 0 ? value ^ 0x80 : value;
+    }
+
+
+    private static void insertionSort(int[] data, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int record = data[i];
+            int j = i - 1;
+            while (j >= from && data[j] > record) {
+                data[j + 1] = data[j];
+                j--;
+            }
+            data[j + 1] = record;
+        }
+    }
+}
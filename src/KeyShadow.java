@@ -0,0 +1,221 @@
+/**
+ * The KeyShadow class keeps the keys of recently compared blocks in a dense
+ * short array, so that comparisons read a primitive array instead of going
+ * through the pool. The keys of a block are paged in with one read of the
+ * block through the pool, into one of the two slots of the set chosen by
+ * the block number, taking the place of the block of the set used least
+ * recently. Two ways per set let the two scans of a partition share a set
+ * without paging each other out at every step. Records still move through
+ * the pool, and every swap is mirrored in the shadow so that it never
+ * holds a stale key.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class KeyShadow {
+    private static final int RUN = BufferPool.BUFFERSIZE
+        / BufferPoolADT.RECORDSIZE;
+    private static final int SHIFT = Integer.numberOfTrailingZeros(RUN);
+    private BufferPoolADT pool;
+    private long records;
+    private short[] keys;
+    private long[] tags;
+    private int ways;
+    private int mask;
+    private int[] recent;
+    private byte[] scratch;
+    private long hits = 0;
+    private long loads = 0;
+
+    /**
+     * Constructor for the KeyShadow class. The shadow starts empty. Its
+     * size is rounded down so that the number of sets is a power of two,
+     * which lets a block find its set with a mask.
+     *
+     * @param pool
+     *            the pool to page keys in from
+     * @param records
+     *            the number of records in the file
+     * @param blocks
+     *            the number of blocks whose keys the shadow holds at once
+     */
+    public KeyShadow(BufferPoolADT pool, long records, int blocks) {
+        if (blocks < 1) {
+            throw new IllegalArgumentException(
+                "The shadow must hold at least one block");
+        }
+        this.pool = pool;
+        this.records = records;
+        ways = Math.min(2, blocks);
+        int sets = Integer.highestOneBit(blocks / ways);
+        mask = sets - 1;
+        keys = new short[sets * ways * RUN];
+        tags = new long[sets * ways];
+        recent = new int[sets];
+        scratch = new byte[BufferPool.BUFFERSIZE];
+        clear();
+    }
+
+
+    /**
+     * Get the key of a record, paging in the keys of its block if the shadow
+     * does not hold them.
+     *
+     * @param ind
+     *            the index of the record
+     * @return the key of the record
+     */
+    public int key(long ind) {
+        long block = ind >>> SHIFT;
+        int set = (int)block & mask;
+        int slot = set * ways;
+        if (tags[slot] == block) {
+            hits++;
+        }
+        else if (ways > 1 && tags[slot + 1] == block) {
+            slot++;
+            hits++;
+        }
+        else {
+            if (ways > 1 && recent[set] == slot) {
+                slot++;
+            }
+            load(block, slot);
+        }
+        recent[set] = slot;
+        return keys[slot * RUN + ((int)ind & (RUN - 1))];
+    }
+
+
+    /**
+     * Mirror a swap of two records, once the pool has made it. When only
+     * one of the two blocks is held, its new key is read back from the
+     * pool, which has just touched its block, rather than page in the
+     * other block.
+     *
+     * @param left
+     *            the index of one record
+     * @param right
+     *            the index of the other record
+     */
+    public void swap(long left, long right) {
+        int leftAt = find(left);
+        int rightAt = find(right);
+        if (leftAt >= 0 && rightAt >= 0) {
+            short temp = keys[leftAt];
+            keys[leftAt] = keys[rightAt];
+            keys[rightAt] = temp;
+        }
+        else if (leftAt >= 0) {
+            keys[leftAt] = read(left);
+        }
+        else if (rightAt >= 0) {
+            keys[rightAt] = read(right);
+        }
+    }
+
+
+    /**
+     * Drop every block, for when records were written past the shadow.
+     */
+    public void clear() {
+        for (int k = 0; k < tags.length; k++) {
+            tags[k] = -1;
+        }
+    }
+
+
+    /**
+     * Get the number of blocks whose keys the shadow holds at once.
+     *
+     * @return the number of slots
+     */
+    public int blocks() {
+        return tags.length;
+    }
+
+
+    /**
+     * Get the memory the keys take.
+     *
+     * @return the size of the key array in bytes
+     */
+    public long bytes() {
+        return (long)keys.length * Short.BYTES;
+    }
+
+
+    /**
+     * Get the number of keys read from the shadow without paging in.
+     *
+     * @return the number of hits
+     */
+    public long hits() {
+        return hits;
+    }
+
+
+    /**
+     * Get the number of blocks paged in.
+     *
+     * @return the number of loads
+     */
+    public long loads() {
+        return loads;
+    }
+
+
+    /**
+     * Get where the shadow holds the key of a record.
+     *
+     * @param ind
+     *            the index of the record
+     * @return the index of the key in the key array, or -1 if its block is
+     *         not held
+     */
+    private int find(long ind) {
+        long block = ind >>> SHIFT;
+        int slot = ((int)block & mask) * ways;
+        if (tags[slot] != block) {
+            if (ways == 1 || tags[++slot] != block) {
+                return -1;
+            }
+        }
+        return slot * RUN + ((int)ind & (RUN - 1));
+    }
+
+
+    /**
+     * Read the key of one record through the pool.
+     *
+     * @param ind
+     *            the index of the record
+     * @return the key of the record
+     */
+    private short read(long ind) {
+        pool.getBytes(scratch, BufferPoolADT.RECORDSIZE, ind);
+        return (short)Buffer.decodeKey(scratch, 0);
+    }
+
+
+    /**
+     * Page in the keys of a block with one read through the pool.
+     *
+     * @param block
+     *            the block number
+     * @param slot
+     *            the slot to hold its keys
+     */
+    private void load(long block, int slot) {
+        long start = block * RUN;
+        int count = (int)Math.min(RUN, records - start);
+        pool.getRecords(scratch, count, start);
+        int base = slot * RUN;
+        for (int k = 0; k < count; k++) {
+            keys[base + k] = (short)Buffer.decodeKey(scratch, k
+                * BufferPoolADT.RECORDSIZE);
+        }
+        tags[slot] = block;
+        loads++;
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * The LRUPolicy class evicts the least recently used frame. Every hit moves
+ * the frame to the front of a ListLRU, so the frame at the end of the list
+ * is always the one untouched for the longest time. The list links frames
+ * by index, so no call allocates.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class LRUPolicy implements ReplacementPolicy {
+    private ListLRU list;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Constructor for the LRUPolicy class.
+     *
+     * @param numBuffers
+     *            the number of frames in the pool
+     */
+    public LRUPolicy(int numBuffers) {
+        list = new ListLRU(numBuffers);
+    }
+
+
+    @Override
+    public void hit(int frame) {
+        hits++;
+        if (list.contains(frame)) {
+            list.touch(frame);
+        }
+    }
+
+
+    @Override
+    public void admit(int frame, long block) {
+        misses++;
+        list.insertHead(frame);
+    }
+
+
+    @Override
+    public void pin(int frame) {
+        list.remove(frame);
+    }
+
+
+    @Override
+    public void unpin(int frame) {
+        list.insertHead(frame);
+    }
+
+
+    @Override
+    public int victim() {
+        return list.evictTail();
+    }
+
+
+    @Override
+    public long hits() {
+        return hits;
+    }
+
+
+    @Override
+    public long misses() {
+        return misses;
+    }
+
+
+    @Override
+    public String name() {
+        return "lru";
+    }
+}
@@ -0,0 +1,127 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The LatencyHistogram class counts latencies in nanoseconds in log-linear
+ * buckets, the way HdrHistogram does: values below SUB are counted exactly,
+ * and every larger power of two is split into SUB / 2 buckets, so a value
+ * is known to within about 6%. The buckets are allocated with the
+ * histogram, and recording a value allocates nothing, so the histogram can
+ * sit on the miss path of a buffer pool. Counts are atomic, so a monitor
+ * may read them while the pool records.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class LatencyHistogram {
+    private static final int SUB = 32;
+    private static final int HALF = SUB / 2;
+    private static final int SHIFT = Integer.numberOfTrailingZeros(HALF);
+    private static final int BUCKETS = SUB + (63 - SHIFT) * HALF;
+    private AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos
+     *            the latency in nanoseconds; negative values count as 0
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucket(Math.max(0, nanos)));
+    }
+
+
+    /**
+     * Gets the number of latencies recorded.
+     *
+     * @return the number of latencies
+     */
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+
+    /**
+     * Gets the latency below which the given share of the recorded latencies
+     * fall, as the highest value of its bucket.
+     *
+     * @param percentile
+     *            the share of latencies, from 0 to 100
+     * @return the latency in nanoseconds, 0 when nothing was recorded
+     */
+    public long percentile(double percentile) {
+        long total = count();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long)Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return highest(i);
+            }
+        }
+        return highest(BUCKETS - 1);
+    }
+
+
+    /**
+     * Gets the largest recorded latency, to the precision of its bucket.
+     *
+     * @return the latency in nanoseconds, 0 when nothing was recorded
+     */
+    public long max() {
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            if (counts.get(i) > 0) {
+                return highest(i);
+            }
+        }
+        return 0;
+    }
+
+
+    /**
+     * Gets a copy of the histogram, which later records do not change.
+     *
+     * @return the copy
+     */
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        for (int i = 0; i < BUCKETS; i++) {
+            copy.counts.set(i, counts.get(i));
+        }
+        return copy;
+    }
+
+
+    /**
+     * Gets the bucket of a value. A value of SUB or more keeps its highest
+     * SHIFT + 1 bits: the bucket is chosen by the position of the highest
+     * bit and by the SHIFT bits below it.
+     *
+     * @param value
+     *            the non-negative value
+     * @return the index of its bucket
+     */
+    private static int bucket(long value) {
+        if (value < SUB) {
+            return (int)value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SHIFT;
+        return SUB + (shift - 1) * HALF + (int)(value >>> shift) - HALF;
+    }
+
+
+    private static long highest(int bucket) {
+        if (bucket < SUB) {
+            return bucket;
+        }
+        int shift = (bucket - SUB) / HALF + 1;
+        long sub = (bucket - SUB) % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+}
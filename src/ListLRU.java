@@ -1,61 +1,32 @@
 /**
- * The ListLRU class for implementing a Least Recently Used (LRU) list.
+ * The ListLRU class for implementing a Least Recently Used (LRU) list of
+ * buffer frames. The list is intrusive and index based: the links of frame
+ * i are prev[i] and next[i], and one extra slot past the last frame is the
+ * sentinel that closes the list into a ring, so its head is next[sentinel]
+ * and its tail prev[sentinel]. A frame that is not in the list has a prev
+ * link of -1. Every operation but toArray takes constant time, and none
+ * allocates.
  *
- * @param <T>
- *            the type of data stored in the list
  * @author Shubham Laxmikant Deshmukh
  * @version v1
  */
-public class ListLRU<T> {
-
-    private static class Node<T> {
-        private Node<T> prev;
-        private Node<T> next;
-        private T buffData;
-
-        public Node<T> prev() {
-            return prev;
-        }
-
-
-        public Node<T> next() {
-            return next;
-        }
-
-
-        public Node(T data) {
-            buffData = data;
-        }
-
-
-        public void makePrev(Node<T> node) {
-            prev = node;
-        }
-
-
-        public void makeNex(Node<T> node) {
-            next = node;
-        }
-
-
-        public T getBuffData() {
-            return buffData;
-        }
-
-    }
-
+public class ListLRU {
     private int size;
     private int maxsize;
-    private Node<T> head;
-    private Node<T> tail;
+    private int sentinel;
+    private int[] prev;
+    private int[] next;
 
     /**
      * Constructor for the ListLRU class.
      *
      * @param maxSize
-     *            the maximum size of the LRU list
+     *            the maximum size of the LRU list, which is also the number
+     *            of frames, numbered from 0, that it can hold
      */
     public ListLRU(int maxSize) {
+        prev = new int[maxSize + 1];
+        next = new int[maxSize + 1];
         initialize(maxSize);
     }
 
@@ -63,11 +34,13 @@ public class ListLRU<T> {
     private void initialize(int inpSize) {
         size = 0;
         maxsize = inpSize;
-        head = new ListLRU.Node<T>(null);
-        tail = new ListLRU.Node<T>(null);
-        head.makeNex(tail);
-        tail.makePrev(head);
-
+        sentinel = inpSize;
+        for (int i = 0; i < sentinel; i++) {
+            prev[i] = -1;
+            next[i] = -1;
+        }
+        prev[sentinel] = sentinel;
+        next[sentinel] = sentinel;
     }
 
 
@@ -82,14 +55,24 @@ public class ListLRU<T> {
 
 
     /**
-     * Get the data at the specified index in the LRU list.
+     * Check if the LRU list is full.
+     *
+     * @return true if the list is full, false otherwise
+     */
+    public boolean isFull() {
+        return size == maxsize;
+    }
+
+
+    /**
+     * Check if a frame is in the LRU list.
      *
-     * @param ind
-     *            the index to retrieve data from
-     * @return the data at the specified index
+     * @param frame
+     *            the frame
+     * @return true if the frame is in the list
      */
-    public T get(int ind) {
-        return getFirst(ind).getBuffData();
+    public boolean contains(int frame) {
+        return frame >= 0 && frame < sentinel && prev[frame] >= 0;
     }
 
 
@@ -97,71 +80,120 @@ public class ListLRU<T> {
      * Clear the LRU list.
      */
     public void clearing() {
-        initialize(size);
+        initialize(maxsize);
     }
 
 
     /**
-     * Add an element to the front of the LRU list.
+     * Add a frame that is not in the list to the front of the LRU list.
      *
-     * @param obj
-     *            the element to add
+     * @param frame
+     *            the frame to add
      */
-    public void addition(T obj) {
-        Node<T> add = new Node<T>(obj);
-        add.makeNex(head.next());
-        add.makePrev(head);
-        head.makeNex(add);
-        head.next.makePrev(add);
+    public void insertHead(int frame) {
+        check(frame, false);
+        linkFirst(frame);
         size++;
     }
 
 
-    private Node<T> getFirst(int ind) {
-        Node<T> curr = head.next();
-        for (int i = 0; i < ind; i++) {
-            curr = curr.next();
+    /**
+     * Move a frame of the list to the front of the LRU list.
+     *
+     * @param frame
+     *            the frame to move
+     */
+    public void touch(int frame) {
+        check(frame, true);
+        if (next[sentinel] != frame) {
+            unlink(frame);
+            linkFirst(frame);
         }
-        return curr;
     }
 
 
     /**
-     * Push an element to the front of the LRU list at a specified index.
+     * Remove a frame from the LRU list.
      *
-     * @param ind
-     *            the index of the element to push to the front
+     * @param frame
+     *            the frame to remove
      */
-    public void pushFront(int ind) {
-        Node<T> curr = getFirst(ind);
-        curr.prev.makeNex(curr.next);
-        curr.next.makePrev(curr.prev);
-        curr.makePrev(head);
-        curr.makeNex(head.next);
+    public void remove(int frame) {
+        check(frame, true);
+        unlink(frame);
+        size--;
     }
 
 
     /**
-     * Check if the LRU list is full.
+     * Remove and return the frame at the end of the LRU list, the one
+     * touched least recently.
      *
-     * @return true if the list is full, false otherwise
+     * @return the frame at the end of the list
      */
-    public boolean isFull() {
-        return size == maxsize;
+    public int evictTail() {
+        if (size == 0) {
+            throw new IllegalStateException("The list is empty");
+        }
+        int frame = prev[sentinel];
+        unlink(frame);
+        size--;
+        return frame;
     }
 
 
     /**
-     * Remove and return the element at the end of the LRU list.
+     * Get the frames of the LRU list in order, from the most recently
+     * touched to the least. This walks the list, so it is meant for checks
+     * rather than for the pool.
      *
-     * @return the element at the end of the list
+     * @return the frames in list order
      */
-    public T removeLast() {
-        Node<T> nodeBeRemoved = getFirst(size - 1);
-        nodeBeRemoved.prev().makeNex(nodeBeRemoved.next());
-        nodeBeRemoved.next().makePrev(nodeBeRemoved.prev());
-        size--;
-        return nodeBeRemoved.getBuffData();
+    public int[] toArray() {
+        int[] frames = new int[size];
+        int curr = next[sentinel];
+        for (int i = 0; i < size; i++) {
+            frames[i] = curr;
+            curr = next[curr];
+        }
+        return frames;
+    }
+
+
+    private void linkFirst(int frame) {
+        int first = next[sentinel];
+        next[frame] = first;
+        prev[frame] = sentinel;
+        prev[first] = frame;
+        next[sentinel] = frame;
+    }
+
+
+    private void unlink(int frame) {
+        next[prev[frame]] = next[frame];
+        prev[next[frame]] = prev[frame];
+        prev[frame] = -1;
+        next[frame] = -1;
     }
 
+
+    /**
+     * Check that a frame is a frame of the list, and is in it or not.
+     *
+     * @param frame
+     *            the frame
+     * @param linked
+     *            whether the frame must be in the list
+     */
+    private void check(int frame, boolean linked) {
+        if (frame < 0 || frame >= sentinel) {
+            throw new IllegalArgumentException("No frame " + frame
+                + " in a list of " + maxsize);
+        }
+        if ((prev[frame] >= 0) != linked) {
+            throw new IllegalStateException("Frame " + frame + (linked
+                ? " is not in the list"
+                : " is already in the list"));
+        }
+    }
 }
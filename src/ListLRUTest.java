@@ -0,0 +1,158 @@
+import java.util.ArrayList;
+import java.util.Random;
+import student.TestCase;
+
+/**
+ * Checks ListLRU against a reference model, an ArrayList of frames kept in
+ * the same order, through long random sequences of operations.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class ListLRUTest extends TestCase {
+    private static final int STEPS = 20000;
+
+    /**
+     * Applies random operations to lists of several sizes and to the model,
+     * and checks after every step that both hold the same frames in the same
+     * order and agree on size, fullness and membership.
+     */
+    public void testMatchesModel() {
+        int[] sizes = { 1, 2, 3, 8, 64 };
+        for (int seed = 0; seed < 10; seed++) {
+            for (int maxSize : sizes) {
+                Random random = new Random(seed * 31 + maxSize);
+                ListLRU list = new ListLRU(maxSize);
+                ArrayList<Integer> model = new ArrayList<Integer>();
+                for (int step = 0; step < STEPS; step++) {
+                    apply(random, maxSize, list, model);
+                    check(maxSize, list, model);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Checks that misuse is refused without changing the list.
+     */
+    public void testRefusesMisuse() {
+        ListLRU list = new ListLRU(3);
+        Exception thrown = null;
+        try {
+            list.evictTail();
+        }
+        catch (IllegalStateException e) {
+            thrown = e;
+        }
+        assertNotNull(thrown);
+        list.insertHead(1);
+        int[][] calls = { { 0, 1 }, { 1, 0 }, { 2, 2 }, { 0, 3 }, { 1, -1 } };
+        for (int[] call : calls) {
+            thrown = null;
+            try {
+                if (call[0] == 0) {
+                    list.insertHead(call[1]);
+                }
+                else if (call[0] == 1) {
+                    list.touch(call[1]);
+                }
+                else {
+                    list.remove(call[1]);
+                }
+            }
+            catch (IllegalStateException | IllegalArgumentException e) {
+                thrown = e;
+            }
+            assertNotNull(thrown);
+            assertEquals(1, list.size());
+            assertEquals(1, list.toArray()[0]);
+        }
+        assertFalse(list.contains(3));
+        assertFalse(list.contains(-1));
+    }
+
+
+    /**
+     * Checks that a cleared list can be filled to its full size again.
+     */
+    public void testClearingKeepsMaxSize() {
+        ListLRU list = new ListLRU(4);
+        for (int frame = 0; frame < 4; frame++) {
+            list.insertHead(frame);
+        }
+        list.evictTail();
+        list.clearing();
+        assertEquals(0, list.size());
+        for (int frame = 0; frame < 4; frame++) {
+            assertFalse(list.contains(frame));
+            list.insertHead(frame);
+        }
+        assertTrue(list.isFull());
+        assertEquals(0, list.evictTail());
+    }
+
+
+    /**
+     * Applies one random valid operation to the list and the model.
+     *
+     * @param random
+     *            the source of the operations
+     * @param maxSize
+     *            the number of frames of the list
+     * @param list
+     *            the list
+     * @param model
+     *            the frames of the list in order, head first
+     */
+    private void apply(
+        Random random,
+        int maxSize,
+        ListLRU list,
+        ArrayList<Integer> model) {
+        int frame = random.nextInt(maxSize);
+        switch (random.nextInt(5)) {
+            case 0:
+            case 1:
+                if (model.contains(frame)) {
+                    list.touch(frame);
+                    model.remove(Integer.valueOf(frame));
+                }
+                else {
+                    list.insertHead(frame);
+                }
+                model.add(0, frame);
+                break;
+            case 2:
+                if (!model.isEmpty()) {
+                    assertEquals((int)model.remove(model.size() - 1), list
+                        .evictTail());
+                }
+                break;
+            case 3:
+                if (model.contains(frame)) {
+                    list.remove(frame);
+                    model.remove(Integer.valueOf(frame));
+                }
+                break;
+            default:
+                if (random.nextInt(100) == 0) {
+                    list.clearing();
+                    model.clear();
+                }
+        }
+    }
+
+
+    private void check(int maxSize, ListLRU list, ArrayList<Integer> model) {
+        assertEquals(model.size(), list.size());
+        assertEquals(model.size() == maxSize, list.isFull());
+        int[] frames = list.toArray();
+        for (int i = 0; i < frames.length; i++) {
+            assertEquals((int)model.get(i), frames[i]);
+        }
+        for (int frame = 0; frame < maxSize; frame++) {
+            assertEquals(model.contains(frame), list.contains(frame));
+        }
+    }
+}
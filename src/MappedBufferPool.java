@@ -0,0 +1,254 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
+
+/**
+ * The MappedBufferPool class serves the BufferPoolADT contract from a
+ * memory-mapped file instead of explicit buffers, leaving caching to the
+ * operating system's page cache. Files larger than one mapping are split
+ * into block-aligned segments. Since there are no explicit reads or writes,
+ * a disk read is counted the first time a block is touched, a cache hit
+ * every later time, and a disk write for every block that is dirty when the
+ * pool is flushed.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class MappedBufferPool implements BufferPoolADT {
+    private static final int BLOCKSIZE = BufferPool.BUFFERSIZE;
+    private static final long SEGMENTSIZE = 1L << 30;
+    private RandomAccessFile file;
+    private MappedByteBuffer[] segments;
+    private long length;
+    private BitSet touched;
+    private BitSet dirty;
+    private long readToDisc = 0;
+    private long hits = 0;
+    private long writeToDisc = 0;
+
+    /**
+     * Constructor for the MappedBufferPool class.
+     *
+     * @param dataFileName
+     *            the path to the file
+     * @throws IOException
+     *             if the file cannot be opened or mapped
+     */
+    public MappedBufferPool(String dataFileName) throws IOException {
+        file = new RandomAccessFile(dataFileName, "rw");
+        FileChannel channel = file.getChannel();
+        length = channel.size();
+        int count = (int)((length + SEGMENTSIZE - 1) / SEGMENTSIZE);
+        segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long start = i * SEGMENTSIZE;
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, start,
+                Math.min(SEGMENTSIZE, length - start));
+        }
+        touched = new BitSet();
+        dirty = new BitSet();
+    }
+
+
+    /**
+     * Retrieves data from the mapped file at the specified index.
+     *
+     * @param space
+     *            the space to store the retrieved data
+     * @param size
+     *            the size of the data to retrieve
+     * @param ind
+     *            the index from which to retrieve the data
+     */
+    public void getBytes(byte[] space, int size, long ind) {
+        long position = ind * RECORDSIZE;
+        int done = 0;
+        while (done < size) {
+            int offset = (int)((position + done) % SEGMENTSIZE);
+            int count = (int)Math.min(size - done, SEGMENTSIZE - offset);
+            touch(position + done, count, false);
+            segment(position + done).get(offset, space, done, count);
+            done += count;
+        }
+    }
+
+
+    /**
+     * Inserts data into the mapped file at the specified index.
+     *
+     * @param space
+     *            the data to insert
+     * @param size
+     *            the size of the data to insert
+     * @param ind
+     *            the index at which to insert
+     */
+    public void insert(byte[] space, int size, long ind) {
+        long position = ind * RECORDSIZE;
+        int done = 0;
+        while (done < size) {
+            int offset = (int)((position + done) % SEGMENTSIZE);
+            int count = (int)Math.min(size - done, SEGMENTSIZE - offset);
+            touch(position + done, count, true);
+            segment(position + done).put(offset, space, done, count);
+            done += count;
+        }
+    }
+
+
+    /**
+     * Retrieves a run of records from the mapped file.
+     *
+     * @param space
+     *            the space to store the records in
+     * @param count
+     *            the number of records to retrieve
+     * @param start
+     *            the index of the first record
+     */
+    public void getRecords(byte[] space, int count, long start) {
+        getBytes(space, count * RECORDSIZE, start);
+    }
+
+
+    /**
+     * Inserts a run of records into the mapped file.
+     *
+     * @param space
+     *            the records to insert
+     * @param count
+     *            the number of records to insert
+     * @param start
+     *            the index of the first record
+     */
+    public void insertRecords(byte[] space, int count, long start) {
+        insert(space, count * RECORDSIZE, start);
+    }
+
+
+    /**
+     * Swaps two records in place in the mapped file. Records never straddle
+     * a segment, since segments are block aligned.
+     *
+     * @param first
+     *            the index of the first record
+     * @param second
+     *            the index of the second record
+     */
+    public void swapRecords(long first, long second) {
+        long firstPos = first * RECORDSIZE;
+        long secondPos = second * RECORDSIZE;
+        touch(firstPos, RECORDSIZE, true);
+        touch(secondPos, RECORDSIZE, true);
+        MappedByteBuffer left = segment(firstPos);
+        MappedByteBuffer right = segment(secondPos);
+        int leftOffset = (int)(firstPos % SEGMENTSIZE);
+        int rightOffset = (int)(secondPos % SEGMENTSIZE);
+        int leftRecord = left.getInt(leftOffset);
+        left.putInt(leftOffset, right.getInt(rightOffset));
+        right.putInt(rightOffset, leftRecord);
+    }
+
+
+    /**
+     * Forces the modified regions of the mapping to disk, counting one disk
+     * write per dirty block.
+     *
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void flush() throws IOException {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        writeToDisc += dirty.cardinality();
+        dirty.clear();
+    }
+
+
+    /**
+     * Closes the file. The mapping itself is released once it is no longer
+     * referenced.
+     *
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void close() throws IOException {
+        file.close();
+    }
+
+
+    /**
+     * Gets the length of the file.
+     *
+     * @return the length of the file
+     */
+    public long getFileLength() {
+        return length;
+    }
+
+
+    /**
+     * Gets the number of blocks written back by flush.
+     *
+     * @return the number of disk writes
+     */
+    public long discWrite() {
+        return writeToDisc;
+    }
+
+
+    /**
+     * Gets the number of touches of blocks touched before.
+     *
+     * @return the number of cache hits
+     */
+    public long cacheHits() {
+        return hits;
+    }
+
+
+    /**
+     * Gets the number of distinct blocks touched.
+     *
+     * @return the number of disk reads
+     */
+    public long discRead() {
+        return readToDisc;
+    }
+
+
+    private MappedByteBuffer segment(long position) {
+        return segments[(int)(position / SEGMENTSIZE)];
+    }
+
+
+    /**
+     * Records the blocks covered by an access as touched and, for writes, as
+     * dirty.
+     *
+     * @param position
+     *            the byte position of the access
+     * @param size
+     *            the size of the access
+     * @param write
+     *            true if the access modifies the blocks
+     */
+    private void touch(long position, int size, boolean write) {
+        int last = (int)((position + size - 1) / BLOCKSIZE);
+        for (int block = (int)(position / BLOCKSIZE); block <= last; block++) {
+            if (!touched.get(block)) {
+                touched.set(block);
+                readToDisc++;
+            }
+            else {
+                hits++;
+            }
+            if (write) {
+                dirty.set(block);
+            }
+        }
+    }
+}
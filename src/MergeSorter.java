@@ -0,0 +1,470 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * The MergeSorter class sorts a file with an external merge sort instead of
+ * a quicksort through the buffer pool. The memory of numBuffers blocks holds
+ * one run at a time: the file is cut into runs of that size, each run is
+ * sorted in memory and written to a scratch file, and the runs are then
+ * merged with a heap of run numbers, numBuffers - 1 runs at a time, until
+ * one merge writes the sorted file back in place. Records are handled as
+ * big-endian ints, whose order is key order since the key is the high half.
+ * All file access is sequential, in transfers of up to STAGING blocks.
+ * Disk reads and writes are counted in blocks so they compare with the
+ * quicksort's.
+ *
+ * Given a RecordWriter, the sorter streams the sorted records to it instead
+ * of writing them back: the data file is only opened for reading, and the
+ * last merge, or the in-memory sort of a file that fits in one run, feeds
+ * the writer, so the only writes besides the stream are the sequential
+ * writes of the scratch runs.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class MergeSorter implements SortEngine {
+    private static final int BLOCKSIZE = BufferPool.BUFFERSIZE;
+    private static final int RECORDS = BLOCKSIZE / BufferPoolADT.RECORDSIZE;
+    private static final int STAGING = 16;
+    private File statsFile;
+    private String filename;
+    private int numBuffers;
+    private RecordTransfer transfer;
+    private long streamed = 0;
+    private int runs = 0;
+    private int passes = 0;
+    private int time = 0;
+    private RecordWriter sink = null;
+    private String sinkName;
+
+    /**
+     * Constructor for the MergeSorter class.
+     *
+     * @param dataFileName
+     *            the name of the file to be sorted
+     * @param numBuffers
+     *            the number of blocks of memory the sort may use
+     * @param statFileName
+     *            the name of the output file for statistics
+     */
+    public MergeSorter(
+        String dataFileName,
+        int numBuffers,
+        String statFileName) {
+        filename = dataFileName;
+        statsFile = new File(statFileName);
+        this.numBuffers = Math.max(1, numBuffers);
+        transfer = new RecordTransfer(dataFileName, Math.min(this.numBuffers,
+            STAGING));
+    }
+
+
+    /**
+     * Constructor for a MergeSorter that streams the sorted records to a
+     * writer, leaving the data file as it was. The writer is closed when the
+     * sort is done.
+     *
+     * @param dataFileName
+     *            the name of the file to be sorted
+     * @param numBuffers
+     *            the number of blocks of memory the sort may use
+     * @param statFileName
+     *            the name of the output file for statistics
+     * @param sink
+     *            the writer to stream the sorted records to
+     * @param sinkName
+     *            the name of the writer's destination, for the statistics
+     */
+    public MergeSorter(
+        String dataFileName,
+        int numBuffers,
+        String statFileName,
+        RecordWriter sink,
+        String sinkName) {
+        this(dataFileName, numBuffers, statFileName);
+        this.sink = sink;
+        this.sinkName = sinkName;
+    }
+
+
+    /**
+     * Sort the file, measure the time taken and write the statistics.
+     *
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void writeTime() throws IOException {
+        final long start = System.currentTimeMillis();
+        sort();
+        final long end = System.currentTimeMillis();
+        time = (int)(end - start);
+        writeFile(statsFile);
+    }
+
+
+    /**
+     * Write statistics to the specified output file, in the format of
+     * Sorter followed by the number of runs and merge passes, and where the
+     * records were streamed to, if anywhere. There is no cache, so the cache
+     * hits are always 0. The disk writes include the streamed blocks.
+     *
+     * @param input
+     *            the output file to write statistics to
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void writeFile(File input) throws IOException {
+        PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(
+            input, true)));
+        writer.println("Sort on " + filename);
+        writer.println("Cache Hits: 0");
+        writer.println("Disk Reads: " + transfer.reads());
+        writer.println("Disk Writes: " + (transfer.writes() + streamed));
+        writer.println("Time is " + time);
+        writer.println("Runs: " + runs + ", Merge Passes: " + passes);
+        if (sink != null) {
+            writer.println("Streamed To: " + sinkName);
+        }
+        writer.close();
+    }
+
+
+    /**
+     * Sort the file in place, or stream it sorted to the writer.
+     *
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void sort() throws IOException {
+        RandomAccessFile data = new RandomAccessFile(filename, sink == null
+            ? "rw"
+            : "r");
+        try {
+            long records = data.length() / BufferPoolADT.RECORDSIZE;
+            int runRecords = numBuffers * RECORDS;
+            if (records <= runRecords) {
+                int[] run = new int[(int)records];
+                transfer.read(data.getChannel(), run, 0, run.length, 0);
+                Arrays.sort(run);
+                emit(sink == null ? data.getChannel() : null, run, run.length,
+                    0);
+                runs = records > 0 ? 1 : 0;
+            }
+            else {
+                sortRuns(data, records, runRecords);
+            }
+        }
+        finally {
+            data.close();
+        }
+        finish();
+    }
+
+
+    /**
+     * Sort a file larger than one run: cut it into runs in a scratch file
+     * and merge them, through a second scratch file, until the last merge
+     * writes the data file or the writer. The scratch files are closed and
+     * deleted whether or not the passes succeed.
+     *
+     * @param data
+     *            the data file
+     * @param records
+     *            the number of records in the file
+     * @param runRecords
+     *            the number of records per run
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    private void sortRuns(RandomAccessFile data, long records, int runRecords)
+        throws IOException {
+        File first = new File(filename + ".run");
+        File second = new File(filename + ".merge");
+        RandomAccessFile source = null;
+        RandomAccessFile target = null;
+        try {
+            source = new RandomAccessFile(first, "rw");
+            target = new RandomAccessFile(second, "rw");
+            long[] starts = makeRuns(data.getChannel(), source.getChannel(),
+                records, runRecords);
+            int fanIn = Math.max(2, numBuffers - 1);
+            while (starts.length > fanIn) {
+                starts = mergePass(source.getChannel(), target.getChannel(),
+                    starts, records, fanIn);
+                RandomAccessFile temp = source;
+                source = target;
+                target = temp;
+            }
+            mergePass(source.getChannel(), sink == null
+                ? data.getChannel()
+                : null, starts, records, fanIn);
+        }
+        finally {
+            if (source != null) {
+                source.close();
+            }
+            if (target != null) {
+                target.close();
+            }
+            first.delete();
+            second.delete();
+        }
+    }
+
+
+    /**
+     * Write merged records to a file, or to the writer when the file is
+     * null.
+     *
+     * @param out
+     *            the file to write to, or null for the writer
+     * @param output
+     *            the records
+     * @param count
+     *            the number of records
+     * @param first
+     *            the index in the file of the first record
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    private void emit(FileChannel out, int[] output, int count, long first)
+        throws IOException {
+        if (out == null) {
+            sink.write(output, 0, count);
+        }
+        else {
+            transfer.write(out, output, 0, count, first);
+        }
+    }
+
+
+    /**
+     * Close the writer, if any, and count what it wrote in blocks.
+     *
+     * @throws IOException
+     *             if a write of the writer failed
+     */
+    private void finish() throws IOException {
+        if (sink != null) {
+            sink.close();
+            streamed = (sink.bytes() + BLOCKSIZE - 1) / BLOCKSIZE;
+        }
+    }
+
+
+    /**
+     * Cut the file into runs of runRecords records, sort each in memory and
+     * write it to the same place in the run file.
+     *
+     * @param in
+     *            the file to sort
+     * @param out
+     *            the run file
+     * @param records
+     *            the number of records in the file
+     * @param runRecords
+     *            the number of records per run
+     * @return the index of the first record of each run
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    private long[] makeRuns(
+        FileChannel in,
+        FileChannel out,
+        long records,
+        int runRecords)
+        throws IOException {
+        runs = (int)((records + runRecords - 1) / runRecords);
+        long[] starts = new long[runs];
+        int[] run = new int[runRecords];
+        for (int i = 0; i < runs; i++) {
+            starts[i] = (long)i * runRecords;
+            int count = (int)Math.min(runRecords, records - starts[i]);
+            transfer.read(in, run, 0, count, starts[i]);
+            Arrays.sort(run, 0, count);
+            transfer.write(out, run, 0, count, starts[i]);
+        }
+        return starts;
+    }
+
+
+    /**
+     * Merge each group of fanIn consecutive runs into one run at the same
+     * place in the output.
+     *
+     * @param in
+     *            the file holding the runs
+     * @param out
+     *            the file to write the merged runs to, or null for the
+     *            writer
+     * @param starts
+     *            the index of the first record of each run
+     * @param records
+     *            the number of records in the file
+     * @param fanIn
+     *            the number of runs merged at once
+     * @return the index of the first record of each merged run
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    private long[] mergePass(
+        FileChannel in,
+        FileChannel out,
+        long[] starts,
+        long records,
+        int fanIn)
+        throws IOException {
+        long[] merged = new long[(starts.length + fanIn - 1) / fanIn];
+        for (int group = 0; group < merged.length; group++) {
+            int from = group * fanIn;
+            int to = Math.min(from + fanIn, starts.length);
+            merged[group] = starts[from];
+            mergeGroup(in, out, starts, from, to, records);
+        }
+        passes++;
+        return merged;
+    }
+
+
+    /**
+     * Merge runs from to to - 1. The memory is split evenly between an input
+     * buffer per run and one output buffer.
+     *
+     * @param in
+     *            the file holding the runs
+     * @param out
+     *            the file to write the merged run to, or null for the writer
+     * @param starts
+     *            the index of the first record of each run
+     * @param from
+     *            the first run to merge
+     * @param to
+     *            one past the last run to merge
+     * @param records
+     *            the number of records in the file
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    private void mergeGroup(
+        FileChannel in,
+        FileChannel out,
+        long[] starts,
+        int from,
+        int to,
+        long records)
+        throws IOException {
+        int count = to - from;
+        int slice = Math.max(RECORDS, numBuffers * RECORDS / (count + 1));
+        int[] input = new int[count * slice];
+        long[] next = new long[count];
+        long[] end = new long[count];
+        int[] pos = new int[count];
+        int[] limit = new int[count];
+        int[] heap = new int[count];
+        int size = 0;
+        for (int run = 0; run < count; run++) {
+            next[run] = starts[from + run];
+            end[run] = from + run + 1 < starts.length
+                ? starts[from + run + 1]
+                : records;
+            refill(in, input, slice, run, next, end, pos, limit);
+            if (limit[run] > 0) {
+                heap[size++] = run;
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(heap, size, i, input, slice, pos);
+        }
+        int[] output = new int[slice];
+        int buffered = 0;
+        long written = starts[from];
+        while (size > 0) {
+            int run = heap[0];
+            output[buffered++] = input[run * slice + pos[run]++];
+            if (buffered == slice) {
+                emit(out, output, buffered, written);
+                written += buffered;
+                buffered = 0;
+            }
+            if (pos[run] == limit[run]) {
+                refill(in, input, slice, run, next, end, pos, limit);
+                if (limit[run] == 0) {
+                    heap[0] = heap[--size];
+                }
+            }
+            siftDown(heap, size, 0, input, slice, pos);
+        }
+        emit(out, output, buffered, written);
+    }
+
+
+    private void refill(
+        FileChannel in,
+        int[] input,
+        int slice,
+        int run,
+        long[] next,
+        long[] end,
+        int[] pos,
+        int[] limit)
+        throws IOException {
+        int count = (int)Math.min(slice, end[run] - next[run]);
+        transfer.read(in, input, run * slice, count, next[run]);
+        next[run] += count;
+        pos[run] = 0;
+        limit[run] = count;
+    }
+
+
+    /**
+     * Restore the heap order below a node. Runs are ordered by their current
+     * record.
+     *
+     * @param heap
+     *            the run numbers
+     * @param size
+     *            the number of runs in the heap
+     * @param node
+     *            the node to sift down
+     * @param input
+     *            the input buffers of the runs
+     * @param slice
+     *            the length of each input buffer
+     * @param pos
+     *            the position of the current record of each run
+     */
+    private static void siftDown(
+        int[] heap,
+        int size,
+        int node,
+        int[] input,
+        int slice,
+        int[] pos) {
+        int run = heap[node];
+        int record = input[run * slice + pos[run]];
+        while (2 * node + 1 < size) {
+            int child = 2 * node + 1;
+            int childRecord = input[heap[child] * slice + pos[heap[child]]];
+            if (child + 1 < size) {
+                int right = heap[child + 1];
+                int rightRecord = input[right * slice + pos[right]];
+                if (rightRecord < childRecord) {
+                    child++;
+                    childRecord = rightRecord;
+                }
+            }
+            if (record <= childRecord) {
+                break;
+            }
+            heap[node] = heap[child];
+            node = child;
+        }
+        heap[node] = run;
+    }
+}
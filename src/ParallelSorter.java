@@ -0,0 +1,209 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The ParallelSorter class sorts a file with a quicksort whose independent
+ * subranges are sorted concurrently on a ForkJoinPool. Each task splits a
+ * range of at least THRESHOLD records once and forks its two sides as
+ * separate tasks; a smaller range, or one already 2 log2(n) partitions
+ * deep, is sorted by the task that owns it with the loop of Sorter, so its
+ * depth limit and heapsort fallback bound the parallel sort too. Every task
+ * does its work through a Sorter of its own, which brings the pivot,
+ * partition and key shadow options with it, and all tasks share one
+ * StripedBufferPool. An optional presort pass runs before the tasks are
+ * forked.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class ParallelSorter implements SortEngine {
+    private static final int THRESHOLD = 1 << 14;
+    private static final int STRIPES_PER_THREAD = 4;
+    private File statsFile;
+    private String filename;
+    private StripedBufferPool buffpool;
+    private SortOptions options;
+    private int threads;
+    private int presortBlocks;
+    private long presorted = 0;
+    private int limit;
+    private LongAdder swaps = new LongAdder();
+    private LongAdder keyReads = new LongAdder();
+    private int time = 0;
+
+    /**
+     * Constructor for the ParallelSorter class.
+     *
+     * @param dataFileName
+     *            the name of the file to be sorted
+     * @param numBuffers
+     *            the number of buffer slots available, shared by all threads
+     * @param statFileName
+     *            the name of the output file for statistics
+     * @param options
+     *            the optional settings of the sort; the thread count is
+     *            taken from here
+     */
+    public ParallelSorter(
+        String dataFileName,
+        int numBuffers,
+        String statFileName,
+        SortOptions options) {
+        if (options.getBackend().equals("mmap") || options.getPrefetch() > 0
+            || options.getJmx()) {
+            throw new IllegalArgumentException(
+                "--threads supports none of --backend=mmap, --prefetch and "
+                    + "--jmx");
+        }
+        filename = dataFileName;
+        statsFile = new File(statFileName);
+        this.options = options;
+        threads = options.getThreads();
+        presortBlocks = Sorter.presortBlocks(options, numBuffers);
+        buffpool = new StripedBufferPool(dataFileName, numBuffers, threads
+            * STRIPES_PER_THREAD, options.getPolicy());
+        if (options.getWriteBehind() > 0) {
+            buffpool.enableWriteBehind(options.getWriteBehind());
+        }
+        if (options.getCoalesce()) {
+            buffpool.enableCoalescing();
+        }
+    }
+
+
+    /**
+     * Sort the file on a pool of worker threads and write the statistics.
+     *
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void writeTime() throws IOException {
+        ForkJoinPool workers = new ForkJoinPool(threads);
+        final long start = System.currentTimeMillis();
+        long records = buffpool.getFileLength() / 4;
+        if (presortBlocks > 0) {
+            Sorter worker = new Sorter(buffpool, options);
+            worker.presort(buffpool, records, presortBlocks);
+            presorted = worker.presorted();
+        }
+        limit = Sorter.depthLimit(records);
+        try {
+            workers.invoke(new SortTask(0, records - 1, 0));
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        final long end = System.currentTimeMillis();
+        workers.shutdown();
+        buffpool.flush();
+        buffpool.close();
+        time = (int)(end - start);
+        writeFile(statsFile);
+    }
+
+
+    /**
+     * Write statistics to the specified output file, in the format of
+     * Sorter followed by the physical writes and the thread and shard
+     * counts.
+     *
+     * @param input
+     *            the output file to write statistics to
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void writeFile(File input) throws IOException {
+        PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(
+            input, true)));
+        writer.println("Sort on " + filename);
+        writer.println("Cache Hits: " + buffpool.cacheHits());
+        writer.println("Disk Reads: " + buffpool.discRead());
+        writer.println("Disk Writes: " + buffpool.discWrite());
+        writer.println("Time is " + time);
+        writer.println("Swaps: " + swaps.sum());
+        writer.println("Key Reads: " + keyReads.sum());
+        if (presortBlocks > 0) {
+            writer.println("Presorted Chunks: " + presorted + " of "
+                + presortBlocks + " blocks");
+        }
+        writer.println("Physical Writes: " + buffpool.physicalWrites());
+        writer.println("Threads: " + threads + ", Shards: " + buffpool
+            .shards());
+        writer.close();
+    }
+
+
+    /**
+     * A task sorting one range of records.
+     */
+    private class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final long left;
+        private final long right;
+        private final long depth;
+
+        /**
+         * Constructor for the SortTask class.
+         *
+         * @param left
+         *            the index of the first record of the range
+         * @param right
+         *            the index of the last record of the range
+         * @param depth
+         *            the number of partitions above the range
+         */
+        SortTask(long left, long right, long depth) {
+            this.left = left;
+            this.right = right;
+            this.depth = depth;
+        }
+
+
+        /**
+         * Sort the range, or split it and fork its two sides. The Sorter
+         * is made here rather than shared, since its key shadow and run
+         * buffers are only valid for the range it works on.
+         */
+        @Override
+        protected void compute() {
+            Sorter worker;
+            try {
+                worker = new Sorter(buffpool, options);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (right - left + 1 < THRESHOLD || depth >= limit) {
+                worker.sort(buffpool, left, right, depth, limit);
+                count(worker);
+                return;
+            }
+            long less = worker.split(buffpool, left, right);
+            count(worker);
+            if (less >= 0) {
+                RecursiveAction.invokeAll(new SortTask(left, less - 1, depth
+                    + 1), new SortTask(worker.greaterStart(), right, depth
+                        + 1));
+            }
+        }
+    }
+
+
+    /**
+     * Add the work of a task's Sorter to the totals.
+     *
+     * @param worker
+     *            the Sorter of the task
+     */
+    private void count(Sorter worker) {
+        swaps.add(worker.swaps());
+        keyReads.add(worker.keyReads());
+    }
+}
@@ -0,0 +1,109 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongToIntFunction;
+
+/**
+ * The PivotStrategy interface for choosing the pivot of a quicksort
+ * partition. Every key a strategy looks at costs the sort a buffer pool
+ * access, so the strategies sample at most nine keys.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public interface PivotStrategy {
+
+    /**
+     * Chooses the index of the pivot of a range.
+     *
+     * @param keys
+     *            gives the key at an index
+     * @param left
+     *            the first index of the range
+     * @param right
+     *            the last index of the range
+     * @return the index of the pivot, from left to right
+     */
+    public long pick(LongToIntFunction keys, long left, long right);
+
+
+    /**
+     * Creates a strategy from its command line name: "middle" for the middle
+     * index, "median3" for the median of the first, middle and last keys,
+     * "ninther" for Tukey's median of three medians of three, and "random"
+     * for a uniformly random index.
+     *
+     * @param name
+     *            one of "middle", "median3", "ninther" or "random"
+     * @return the strategy
+     */
+    public static PivotStrategy forName(String name) {
+        switch (name) {
+            case "middle":
+                return (keys, left, right) -> left + (right - left) / 2;
+            case "median3":
+                return (keys, left, right) -> median(keys, left, left
+                    + (right - left) / 2, right);
+            case "ninther":
+                return PivotStrategy::ninther;
+            case "random":
+                return (keys, left, right) -> ThreadLocalRandom.current()
+                    .nextLong(left, right + 1);
+            default:
+                throw new IllegalArgumentException("Unknown pivot strategy: "
+                    + name);
+        }
+    }
+
+
+    /**
+     * Tukey's ninther: the median of the medians of three evenly spaced
+     * triples. Ranges of fewer than 40 records use the median of three.
+     *
+     * @param keys
+     *            gives the key at an index
+     * @param left
+     *            the first index of the range
+     * @param right
+     *            the last index of the range
+     * @return the index of the pivot
+     */
+    public static long ninther(LongToIntFunction keys, long left, long right) {
+        long middle = left + (right - left) / 2;
+        if (right - left + 1 < 40) {
+            return median(keys, left, middle, right);
+        }
+        long step = (right - left + 1) / 8;
+        return median(keys, median(keys, left, left + step, left + 2 * step),
+            median(keys, middle - step, middle, middle + step), median(keys,
+                right - 2 * step, right - step, right));
+    }
+
+
+    /**
+     * Gets the index holding the median of the keys at three indices.
+     *
+     * @param keys
+     *            gives the key at an index
+     * @param a
+     *            the first index
+     * @param b
+     *            the second index
+     * @param c
+     *            the third index
+     * @return the index of the median key
+     */
+    public static long median(LongToIntFunction keys, long a, long b, long c) {
+        int ka = keys.applyAsInt(a);
+        int kb = keys.applyAsInt(b);
+        int kc = keys.applyAsInt(c);
+        if (ka < kb) {
+            if (kb < kc) {
+                return b;
+            }
+            return ka < kc ? c : a;
+        }
+        if (ka < kc) {
+            return a;
+        }
+        return kb < kc ? c : b;
+    }
+}
@@ -0,0 +1,265 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * The Prefetcher class reads blocks ahead of a BufferPool on a background
+ * thread. Requested blocks are read with positional FileChannel reads into a
+ * fixed set of staging slots; when the pool later misses on a staged block,
+ * the block is copied from its slot instead of being read from the file.
+ * Staging outside the pool's frames means a wrong guess never evicts a
+ * block the sort still needs. A staged block that is recycled or still
+ * unused when the prefetcher closes counts as waste.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class Prefetcher implements Runnable {
+    private static final int BLOCKSIZE = BufferPool.BUFFERSIZE;
+    private static final int EMPTY = 0;
+    private static final int QUEUED = 1;
+    private static final int LOADING = 2;
+    private static final int READY = 3;
+    private FileChannel channel;
+    private byte[] copies;
+    private ByteBuffer[] views;
+    private long[] blocks;
+    private long[] order;
+    private int[] state;
+    private long sequence = 0;
+    private BlockIndex staged;
+    private boolean closed = false;
+    private long reads = 0;
+    private long hits = 0;
+    private long waste = 0;
+    private Thread reader;
+
+    /**
+     * Constructor for the Prefetcher class. Starts the reader thread.
+     *
+     * @param channel
+     *            the channel of the file to read from
+     * @param slots
+     *            the number of blocks that may be staged at once
+     */
+    public Prefetcher(FileChannel channel, int slots) {
+        this.channel = channel;
+        copies = new byte[slots * BLOCKSIZE];
+        views = new ByteBuffer[slots];
+        blocks = new long[slots];
+        order = new long[slots];
+        state = new int[slots];
+        for (int i = 0; i < slots; i++) {
+            views[i] = ByteBuffer.wrap(copies, i * BLOCKSIZE, BLOCKSIZE)
+                .slice();
+        }
+        staged = new BlockIndex(slots);
+        reader = new Thread(this, "prefetch");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+
+    /**
+     * Asks for a block to be read ahead. The request is dropped if the block
+     * is already staged or every slot is queued or being read; otherwise
+     * the oldest unused staged block may be recycled.
+     *
+     * @param block
+     *            the block to read ahead
+     */
+    public synchronized void request(long block) {
+        if (closed || staged.get(block) >= 0) {
+            return;
+        }
+        int slot = -1;
+        for (int i = 0; i < state.length; i++) {
+            if (state[i] == EMPTY) {
+                slot = i;
+                break;
+            }
+            if (state[i] == READY && (slot < 0 || order[i] < order[slot])) {
+                slot = i;
+            }
+        }
+        if (slot < 0) {
+            return;
+        }
+        if (state[slot] == READY) {
+            staged.remove(blocks[slot]);
+            waste++;
+        }
+        blocks[slot] = block;
+        order[slot] = sequence++;
+        state[slot] = QUEUED;
+        staged.put(block, slot);
+        notifyAll();
+    }
+
+
+    /**
+     * Copies a staged block and frees its slot. A block whose read is in
+     * progress is waited for; a block still queued is withdrawn, and the
+     * caller reads it itself.
+     *
+     * @param block
+     *            the block wanted
+     * @param destination
+     *            the array to copy the block into
+     * @param offset
+     *            the offset in the array to copy to
+     * @return true if the block was staged and has been copied
+     * @throws IOException
+     *             if the wait was interrupted
+     */
+    public synchronized boolean take(
+        long block,
+        byte[] destination,
+        int offset)
+        throws IOException {
+        int slot = staged.get(block);
+        if (slot < 0) {
+            return false;
+        }
+        while (state[slot] == LOADING) {
+            try {
+                wait();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(
+                    "Interrupted while waiting for prefetch");
+            }
+        }
+        boolean ready = state[slot] == READY && blocks[slot] == block;
+        if (ready) {
+            System.arraycopy(copies, slot * BLOCKSIZE, destination, offset,
+                BLOCKSIZE);
+            hits++;
+        }
+        if (staged.get(block) == slot) {
+            staged.remove(block);
+            state[slot] = EMPTY;
+        }
+        return ready;
+    }
+
+
+    /**
+     * Stops the reader thread. Blocks that were staged but never taken are
+     * counted as waste.
+     */
+    public synchronized void close() {
+        closed = true;
+        for (int i = 0; i < state.length; i++) {
+            if (state[i] == READY) {
+                waste++;
+            }
+            state[i] = EMPTY;
+        }
+        staged.clear();
+        notifyAll();
+    }
+
+
+    /**
+     * The reader thread: reads the oldest queued slot outside the lock and
+     * marks it ready. A failed read simply frees the slot.
+     */
+    @Override
+    public void run() {
+        while (true) {
+            int slot;
+            long block;
+            synchronized (this) {
+                slot = nextQueued();
+                while (slot < 0 && !closed) {
+                    try {
+                        wait();
+                    }
+                    catch (InterruptedException e) {
+                        return;
+                    }
+                    slot = nextQueued();
+                }
+                if (closed) {
+                    return;
+                }
+                state[slot] = LOADING;
+                block = blocks[slot];
+            }
+            boolean done = true;
+            try {
+                ByteBuffer view = views[slot];
+                view.clear();
+                long position = block * BLOCKSIZE;
+                while (view.hasRemaining()) {
+                    int count = channel.read(view, position);
+                    if (count < 0) {
+                        break;
+                    }
+                    position += count;
+                }
+                Arrays.fill(copies, slot * BLOCKSIZE + view.position(), (slot
+                    + 1) * BLOCKSIZE, (byte)0);
+            }
+            catch (IOException e) {
+                done = false;
+            }
+            synchronized (this) {
+                reads++;
+                if (done && !closed) {
+                    state[slot] = READY;
+                }
+                else {
+                    staged.remove(block);
+                    state[slot] = EMPTY;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+
+    private int nextQueued() {
+        int slot = -1;
+        for (int i = 0; i < state.length; i++) {
+            if (state[i] == QUEUED && (slot < 0 || order[i] < order[slot])) {
+                slot = i;
+            }
+        }
+        return slot;
+    }
+
+
+    /**
+     * Gets the number of blocks the reader thread has read from the file.
+     *
+     * @return the number of prefetch reads
+     */
+    public synchronized long reads() {
+        return reads;
+    }
+
+
+    /**
+     * Gets the number of misses that were served from a staged block.
+     *
+     * @return the number of prefetch hits
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+
+    /**
+     * Gets the number of staged blocks that were never used.
+     *
+     * @return the number of wasted prefetches
+     */
+    public synchronized long waste() {
+        return waste;
+    }
+}
@@ -65,7 +65,14 @@ public class Quicksort {
      * The main method for the Quicksort program.
      *
      * @param args
-     *            Command line parameters.
+     *            Command line parameters: the data file, the number of
+     *            buffers, the statistics file and then optional settings
+     *            such as --policy=lru|clock|2q, --backend=buffer|mmap,
+     *            --write-behind=depth, --prefetch=depth, --threads=count
+     *            --engine=quicksort|merge|radix, --memory=bytes,
+     *            --pivot=middle|median3|ninther|random,
+     *            --partition=two|three, --presort=none|block|pool,
+     *            --jmx=on|off and --output=file.
      * @throws IOException
      *             if there is an issue with I/O operations.
      */
@@ -73,7 +80,9 @@ public class Quicksort {
         String dataFileName = args[0];
         int numBuffers = Integer.parseInt(args[1]);
         String statFileName = args[2];
-        Sorter sorter = new Sorter(dataFileName, numBuffers, statFileName);
+        SortOptions options = SortOptions.parse(args, 3);
+        SortEngine sorter = SortEngine.create(dataFileName, numBuffers,
+            statFileName, options);
         sorter.writeTime();
     }
 }
@@ -1,3 +1,18 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import student.TestCase;
 
 /**
@@ -36,6 +51,910 @@ public class QuicksortTest extends TestCase {
         assertFalse(fileChecker.checkFile("input.txt"));
     }
 
+
+    /**
+     * Sorts a small binary file with each replacement policy and checks that
+     * the result is sorted.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testSortWithEachPolicy() throws Exception {
+        String[] policies = { "lru", "clock", "2q" };
+        for (String policy : policies) {
+            Quicksort.generateFile("policy.bin", "4", 'b');
+            Quicksort.main(new String[] { "policy.bin", "2", "policyStat.txt",
+                "--policy=" + policy });
+            assertTrue(fileChecker.checkFile("policy.bin"));
+        }
+    }
+
+
+    /**
+     * Sorts a file through the memory-mapped backend, then checks that the
+     * mapped pool counts each touched block as one read and each modified
+     * block as one write.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testMappedBackend() throws Exception {
+        Quicksort.generateFile("mapped.bin", "3", 'a');
+        Quicksort.main(new String[] { "mapped.bin", "1", "mappedStat.txt",
+            "--backend=mmap" });
+        assertTrue(fileChecker.checkFile("mapped.bin"));
+
+        MappedBufferPool pool = new MappedBufferPool("mapped.bin");
+        byte[] record = new byte[4];
+        pool.getBytes(record, 4, 0);
+        pool.getBytes(record, 4, 1);
+        pool.swapRecords(0, 2047);
+        pool.flush();
+        assertEquals(2, pool.discRead());
+        assertEquals(2, pool.discWrite());
+    }
+
+
+    /**
+     * Sorts with dirty evictions written behind by a background thread. A
+     * single buffer with a queue of two keeps blocks in flight that the sort
+     * has to read back from the queue.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testWriteBehind() throws Exception {
+        Quicksort.generateFile("behind.bin", "6", 'b');
+        Quicksort.main(new String[] { "behind.bin", "1", "behindStat.txt",
+            "--write-behind=2" });
+        assertTrue(fileChecker.checkFile("behind.bin"));
+    }
+
+
+    /**
+     * Sorts with read-ahead enabled, and checks that a forward and a
+     * backward scan through a prefetching pool read the same bytes as the
+     * file holds.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testPrefetch() throws Exception {
+        Quicksort.generateFile("prefetch.bin", "8", 'b');
+        Quicksort.main(new String[] { "prefetch.bin", "2", "prefetchStat.txt",
+            "--prefetch=3" });
+        assertTrue(fileChecker.checkFile("prefetch.bin"));
+
+        byte[] expected = new byte[8 * 4096];
+        RandomAccessFile file = new RandomAccessFile("prefetch.bin", "r");
+        file.readFully(expected);
+        file.close();
+        BufferPool pool = new BufferPool("prefetch.bin", 2);
+        pool.enablePrefetch(3);
+        byte[] block = new byte[4096];
+        for (int pass = 0; pass < 16; pass++) {
+            int b = pass < 8 ? pass : 15 - pass;
+            pool.getRecords(block, 1024, b * 1024);
+            for (int k = 0; k < 4096; k++) {
+                assertEquals(expected[b * 4096 + k], block[k]);
+            }
+        }
+        pool.close();
+        assertTrue(pool.prefetchHits() + pool.prefetchWaste() <= pool
+            .discRead());
+    }
+
+
+    /**
+     * Sorts on several threads sharing a striped pool, with fewer frames
+     * than shards would like, so that shards of one frame are exercised.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testParallelSort() throws Exception {
+        Quicksort.generateFile("parallel.bin", "40", 'a');
+        Quicksort.main(new String[] { "parallel.bin", "6", "parallelStat.txt",
+            "--threads=4" });
+        assertTrue(fileChecker.checkFile("parallel.bin"));
+    }
+
+
+    /**
+     * Sorts on several threads with the options each task takes from its
+     * Sorter, and checks that the one the tasks cannot honour is refused.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testParallelOptions() throws Exception {
+        Quicksort.generateFile("parallel.bin", "40", 'b');
+        new File("parallelStat.txt").delete();
+        Quicksort.main(new String[] { "parallel.bin", "6", "parallelStat.txt",
+            "--threads=4", "--partition=three", "--presort=pool",
+            "--shadow=4" });
+        assertTrue(fileChecker.checkFile("parallel.bin"));
+        String stats = new String(Files.readAllBytes(new File(
+            "parallelStat.txt").toPath()));
+        assertTrue(stats.contains("Presorted Chunks: 7 of 6 blocks"));
+        Exception thrown = null;
+        try {
+            new ParallelSorter("parallel.bin", 6, "parallelStat.txt",
+                SortOptions.parse(new String[] { "--threads=2", "--jmx=on" },
+                    0));
+        }
+        catch (IllegalArgumentException e) {
+            thrown = e;
+        }
+        assertNotNull(thrown);
+    }
+
+
+    /**
+     * Sorts with the merge engine and a pool so small that the runs take
+     * several merge passes, and checks that the file ends up holding exactly
+     * its own records in order.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testMergeEngine() throws Exception {
+        Quicksort.generateFile("merge.bin", "40", 'a');
+        RandomAccessFile file = new RandomAccessFile("merge.bin", "r");
+        int[] expected = new int[40 * 1024];
+        for (int k = 0; k < expected.length; k++) {
+            expected[k] = file.readInt();
+        }
+        file.close();
+        Arrays.sort(expected);
+        Quicksort.main(new String[] { "merge.bin", "3", "mergeStat.txt",
+            "--engine=merge" });
+        file = new RandomAccessFile("merge.bin", "r");
+        for (int k = 0; k < expected.length; k++) {
+            assertEquals(expected[k], file.readInt());
+        }
+        file.close();
+        assertFalse(new File("merge.bin.run").exists());
+    }
+
+
+    /**
+     * Sorts a file that fits in the pool, which is done in memory with one
+     * read and one write of each block.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testInMemory() throws Exception {
+        Quicksort.generateFile("memory.bin", "10", 'a');
+        new File("memoryStat.txt").delete();
+        Quicksort.main(new String[] { "memory.bin", "10", "memoryStat.txt" });
+        assertTrue(fileChecker.checkFile("memory.bin"));
+        String stats = new String(Files.readAllBytes(new File(
+            "memoryStat.txt").toPath()));
+        String end = System.lineSeparator();
+        assertTrue(stats.contains("Disk Reads: 10" + end));
+        assertTrue(stats.contains("Disk Writes: 10" + end));
+        assertTrue(stats.contains("Sorted In Memory: 10240 records"));
+    }
+
+
+    /**
+     * Checks that a file that fits in the pool is sorted through the pool
+     * when an option of the quicksort is set, and that such an option is
+     * refused with a --memory budget the file fits in.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testInMemoryKeepsOptions() throws Exception {
+        Quicksort.generateFile("memory.bin", "10", 'a');
+        new File("memoryStat.txt").delete();
+        Quicksort.main(new String[] { "memory.bin", "10", "memoryStat.txt",
+            "--threads=2" });
+        assertTrue(fileChecker.checkFile("memory.bin"));
+        String stats = new String(Files.readAllBytes(new File(
+            "memoryStat.txt").toPath()));
+        assertFalse(stats.contains("Sorted In Memory"));
+        assertTrue(stats.contains("Threads: 2"));
+        Exception thrown = null;
+        try {
+            Quicksort.main(new String[] { "memory.bin", "10",
+                "memoryStat.txt", "--memory=1000000", "--pivot=random" });
+        }
+        catch (IllegalArgumentException e) {
+            thrown = e;
+        }
+        assertNotNull(thrown);
+    }
+
+
+    /**
+     * Sorts with the radix engine both out of core and in memory, and checks
+     * that records with equal keys keep their original order. The in-memory
+     * sort needs room for two copies of the file: 40 blocks need 80
+     * buffers.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testRadixEngine() throws Exception {
+        String[] buffers = { "3", "79", "80" };
+        String[] modes = { "(out of core)", "(out of core)", "(in memory)" };
+        for (int m = 0; m < buffers.length; m++) {
+            String numBuffers = buffers[m];
+            Quicksort.generateFile("radix.bin", "40", 'b');
+            new File("radixStat.txt").delete();
+            RandomAccessFile file = new RandomAccessFile("radix.bin", "r");
+            Integer[] expected = new Integer[40 * 1024];
+            for (int k = 0; k < expected.length; k++) {
+                expected[k] = file.readInt();
+            }
+            file.close();
+            Arrays.sort(expected, (a, b) -> Integer.compare(a >> 16, b >> 16));
+            Quicksort.main(new String[] { "radix.bin", numBuffers,
+                "radixStat.txt", "--engine=radix" });
+            file = new RandomAccessFile("radix.bin", "r");
+            for (int k = 0; k < expected.length; k++) {
+                assertEquals((int)expected[k], file.readInt());
+            }
+            file.close();
+            String stats = new String(Files.readAllBytes(new File(
+                "radixStat.txt").toPath()));
+            assertTrue(stats.contains(modes[m]));
+        }
+    }
+
+
+    /**
+     * Sorts sorted, reverse-sorted, organ-pipe and many-duplicate inputs
+     * with each pivot strategy, on one thread and on several. The files
+     * sorted on several threads are large enough for the ranges to be
+     * split between tasks.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testAdversarialInputs() throws Exception {
+        String[] pivots = { "middle", "median3", "ninther", "random" };
+        String[] threads = { "1", "2", "4" };
+        for (String count : threads) {
+            boolean single = count.equals("1");
+            int records = (single ? 8 : 32) * 1024;
+            for (int shape = 0; shape < 4; shape++) {
+                for (String pivot : pivots) {
+                    RandomAccessFile file = new RandomAccessFile("shape.bin",
+                        "rw");
+                    file.setLength(0);
+                    for (int k = 0; k < records; k++) {
+                        int[] keys = { k, records - 1 - k, Math.min(k,
+                            records - 1 - k), k % 4 };
+                        file.writeShort(keys[shape]);
+                        file.writeShort(k);
+                    }
+                    file.close();
+                    Quicksort.main(new String[] { "shape.bin", single
+                        ? "2"
+                        : "8", "shapeStat.txt", "--pivot=" + pivot,
+                        "--threads=" + count });
+                    assertTrue(fileChecker.checkFile("shape.bin"));
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Sorts a file of few distinct keys and a file of random keys with the
+     * three-way partition.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testThreeWayPartition() throws Exception {
+        char[] types = { 'a', 'b' };
+        for (char type : types) {
+            Quicksort.generateFile("three.bin", "12", type);
+            Quicksort.main(new String[] { "three.bin", "3", "threeStat.txt",
+                "--partition=three" });
+            assertTrue(fileChecker.checkFile("three.bin"));
+        }
+    }
+
+
+    /**
+     * Checks the hits, misses, evictions and bytes counted by a pool of two
+     * buffers, and the precision of the latency histogram.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testPoolStats() throws Exception {
+        Quicksort.generateFile("stats.bin", "6", 'b');
+        BufferPool pool = new BufferPool("stats.bin", 2);
+        byte[] record = new byte[4];
+        long[] blocks = { 0, 1, 0, 2 };
+        for (long block : blocks) {
+            pool.getBytes(record, 4, block * 1024);
+        }
+        pool.insert(record, 4, 2 * 1024);
+        pool.getBytes(record, 4, 1024);
+        pool.getBytes(record, 4, 0);
+        BufferPoolStats stats = pool.stats();
+        pool.close();
+        assertEquals(2, stats.hits());
+        assertEquals(5, stats.misses());
+        assertEquals(2, stats.cleanEvictions());
+        assertEquals(1, stats.dirtyEvictions());
+        assertEquals(5 * 4096, stats.bytesRead());
+        assertEquals(4096, stats.bytesWritten());
+        assertEquals(5, stats.missLatency().count());
+        assertEquals(2, pool.cacheHits());
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100000; nanos++) {
+            histogram.record(nanos);
+        }
+        assertEquals(50000, histogram.percentile(50), 50000 * 0.07);
+        assertEquals(100000, histogram.max(), 100000 * 0.07);
+    }
+
+
+    /**
+     * Checks with the allocation counter of the thread that reading keys
+     * allocates nothing, and that a whole sort allocates less than a byte
+     * per key it reads. The sort runs twice so that the second run finds
+     * every class loaded.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testKeysDoNotAllocate() throws Exception {
+        java.lang.management.ThreadMXBean threads = ManagementFactory
+            .getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean counter =
+            (com.sun.management.ThreadMXBean)threads;
+        long id = Thread.currentThread().getId();
+        long allocated = 0;
+        String stats = "";
+        for (int run = 0; run < 2; run++) {
+            Quicksort.generateFile("alloc.bin", "8", 'b');
+            new File("allocStat.txt").delete();
+            Sorter sorter = new Sorter("alloc.bin", 1, "allocStat.txt");
+            for (long ind = 0; ind < 8 * 1024; ind++) {
+                sorter.getKey(ind);
+            }
+            allocated = counter.getThreadAllocatedBytes(id);
+            for (long ind = 0; ind < 8 * 1024; ind++) {
+                sorter.getKey(ind);
+            }
+            assertEquals(0, counter.getThreadAllocatedBytes(id) - allocated);
+            allocated = counter.getThreadAllocatedBytes(id);
+            sorter.writeTime();
+            allocated = counter.getThreadAllocatedBytes(id) - allocated;
+            stats = new String(Files.readAllBytes(new File("allocStat.txt")
+                .toPath()));
+        }
+        assertTrue(fileChecker.checkFile("alloc.bin"));
+        int at = stats.indexOf("Key Reads: ") + "Key Reads: ".length();
+        long keyReads = Long.parseLong(stats.substring(at, stats.indexOf(
+            System.lineSeparator(), at)));
+        assertTrue(allocated < keyReads);
+    }
+
+
+    /**
+     * Streams a sorted file to an output file, through several merge passes
+     * and in memory, and checks that the output holds the records of the
+     * data file in order while the data file is left as it was. An output
+     * naming the data file, however it is spelled, must be refused before
+     * the data file is touched.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testStreamedOutput() throws Exception {
+        String[] buffers = { "3", "64" };
+        for (String numBuffers : buffers) {
+            Quicksort.generateFile("stream.bin", "40", 'b');
+            byte[] data = Files.readAllBytes(new File("stream.bin").toPath());
+            Quicksort.main(new String[] { "stream.bin", numBuffers,
+                "streamStat.txt", "--output=stream.out" });
+            assertTrue(Arrays.equals(data, Files.readAllBytes(new File(
+                "stream.bin").toPath())));
+            RandomAccessFile file = new RandomAccessFile("stream.bin", "r");
+            int[] expected = new int[40 * 1024];
+            for (int k = 0; k < expected.length; k++) {
+                expected[k] = file.readInt();
+            }
+            file.close();
+            Arrays.sort(expected);
+            file = new RandomAccessFile("stream.out", "r");
+            assertEquals(data.length, file.length());
+            for (int k = 0; k < expected.length; k++) {
+                assertEquals(expected[k], file.readInt());
+            }
+            file.close();
+        }
+        String[] outputs = { "stream.bin", "./stream.bin", new File(
+            "stream.bin").getAbsolutePath() };
+        byte[] data = Files.readAllBytes(new File("stream.bin").toPath());
+        for (String output : outputs) {
+            Exception thrown = null;
+            try {
+                Quicksort.main(new String[] { "stream.bin", "4",
+                    "streamStat.txt", "--output=" + output });
+            }
+            catch (IllegalArgumentException e) {
+                thrown = e;
+            }
+            assertNotNull(thrown);
+            assertTrue(Arrays.equals(data, Files.readAllBytes(new File(
+                "stream.bin").toPath())));
+        }
+    }
+
+
+    /**
+     * Checks that the options an engine would ignore are refused with it:
+     * an engine other than merge with an output file, and the pool and
+     * quicksort options with an output file or the merge or radix engine.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testEngineRefusesOptions() throws Exception {
+        Quicksort.generateFile("stream.bin", "4", 'b');
+        new File("refused.out").delete();
+        String[] settings = { "--output=refused.out --engine=quicksort",
+            "--output=refused.out --engine=radix",
+            "--output=refused.out --threads=2",
+            "--output=refused.out --pivot=random",
+            "--engine=merge --policy=clock", "--engine=radix --shadow=4" };
+        for (String setting : settings) {
+            Exception thrown = null;
+            try {
+                SortEngine.create("stream.bin", 4, "streamStat.txt",
+                    SortOptions.parse(setting.split(" "), 0));
+            }
+            catch (IllegalArgumentException e) {
+                thrown = e;
+            }
+            assertNotNull(thrown);
+        }
+        assertFalse(new File("refused.out").exists());
+        assertTrue(SortEngine.create("stream.bin", 4, "streamStat.txt",
+            SortOptions.parse(new String[] { "--engine=merge" }, 0))
+            instanceof MergeSorter);
+    }
+
+
+    /**
+     * Sorts several files of different sizes in one batch, with a budget too
+     * small for every job to get its fill, and checks every file is sorted
+     * and has its own statistics.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testBatchSort() throws Exception {
+        String[] sizes = { "1", "5", "20", "40" };
+        for (int k = 0; k < sizes.length; k++) {
+            Quicksort.generateFile("batch" + k + ".bin", sizes[k], 'b');
+            new File("batchStat" + k + ".txt").delete();
+        }
+        BatchSort batch = new BatchSort(12, 3, new SortOptions());
+        assertEquals(1, batch.framesFor("batch0.bin"));
+        assertEquals(4, batch.framesFor("batch3.bin"));
+        List<String[]> jobs = BatchSort.readJobs(new BufferedReader(
+            new StringReader("batch0.bin batchStat0.txt\n\n"
+                + "batch1.bin batchStat1.txt\nbatch2.bin batchStat2.txt\n"
+                + "batch3.bin batchStat3.txt\n")));
+        assertEquals(4, jobs.size());
+        assertEquals(0, batch.run(jobs));
+        for (int k = 0; k < sizes.length; k++) {
+            assertTrue(fileChecker.checkFile("batch" + k + ".bin"));
+            assertTrue(new File("batchStat" + k + ".txt").length() > 0);
+        }
+        String[] refused = { "--write-behind=4", "--prefetch=4", "--shadow=4",
+            "--memory=65536", "--presort=pool", "--engine=radix",
+            "--output=batch.out" };
+        for (String setting : refused) {
+            SortOptions options = SortOptions.parse(new String[] { setting },
+                0);
+            try {
+                new BatchSort(12, 3, options);
+                fail("Accepted " + setting);
+            }
+            catch (IllegalArgumentException e) {
+                // outside the budget
+            }
+        }
+        new BatchSort(12, 3, SortOptions.parse(new String[] { "--memory=0",
+            "--presort=block", "--engine=merge" }, 0));
+    }
+
+
+    /**
+     * Sorts with a key shadow smaller than the file, through pools with and
+     * without cursors and with both partition schemes, and checks the shadow
+     * is reported.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testKeyShadow() throws Exception {
+        String[][] settings = { { "1", "--partition=two" }, { "4",
+            "--partition=two" }, { "4", "--partition=three" } };
+        for (String[] setting : settings) {
+            Quicksort.generateFile("shadow.bin", "20", 'a');
+            new File("shadowStat.txt").delete();
+            Quicksort.main(new String[] { "shadow.bin", setting[0],
+                "shadowStat.txt", "--shadow=4", setting[1] });
+            assertTrue(fileChecker.checkFile("shadow.bin"));
+            String stats = new String(Files.readAllBytes(new File(
+                "shadowStat.txt").toPath()));
+            assertTrue(stats.contains("Key Shadow: 4 blocks, 8192 bytes"));
+        }
+    }
+
+
+    /**
+     * Checks that flush writes dirty buffers of consecutive blocks with one
+     * write, whatever order they were modified in, and that an eviction
+     * only writes its dirty neighbours along with it when coalescing is
+     * enabled.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testCoalescedFlush() throws Exception {
+        Quicksort.generateFile("flush.bin", "6", 'b');
+        BufferPool pool = new BufferPool("flush.bin", 6);
+        byte[] record = { 0, 1, 0, 2 };
+        int[] blocks = { 4, 1, 2, 0, 5 };
+        for (int block : blocks) {
+            pool.insert(record, 4, block * 1024);
+        }
+        pool.flush();
+        assertEquals(5, pool.discWrite());
+        assertEquals(2, pool.physicalWrites());
+        pool.close();
+
+        for (int coalesce = 0; coalesce < 2; coalesce++) {
+            pool = new BufferPool("flush.bin", 3);
+            if (coalesce == 1) {
+                pool.enableCoalescing();
+            }
+            for (int block = 0; block < 4; block++) {
+                pool.insert(record, 4, block * 1024);
+            }
+            assertEquals(coalesce == 1 ? 3 : 1, pool.discWrite());
+            assertEquals(1, pool.physicalWrites());
+            pool.close();
+        }
+    }
+
+
+    /**
+     * Sorts a sparse file of just over 4 GB. The file is all zero records
+     * except for its last block, whose negative keys have to travel to the
+     * front of the file, so byte positions beyond 2^32 are read and written.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testSortBeyondFourGigabytes() throws Exception {
+        long records = (1L << 30) + 2048;
+        byte[] block = new byte[4096];
+        for (int k = 0; k < 1024; k++) {
+            short key = (short)(-1 - (k * 7919) % 1024);
+            block[4 * k] = (byte)(key >> 8);
+            block[4 * k + 1] = (byte)key;
+        }
+        RandomAccessFile file = new RandomAccessFile("large.bin", "rw");
+        file.setLength(records * 4);
+        file.seek((records - 1024) * 4);
+        file.write(block);
+        file.close();
+
+        Sorter sorter = new Sorter("large.bin", 4, "largeStat.txt");
+        sorter.writeTime();
+
+        file = new RandomAccessFile("large.bin", "r");
+        assertEquals(records * 4, file.length());
+        short previous = Short.MIN_VALUE;
+        for (int k = 0; k < 1025; k++) {
+            short key = file.readShort();
+            file.readShort();
+            assertTrue(previous <= key);
+            assertEquals(k < 1024, key < 0);
+            previous = key;
+        }
+        file.seek((records - 1024) * 4);
+        file.readFully(block);
+        for (int k = 0; k < 1024; k++) {
+            assertEquals(0, block[4 * k] | block[4 * k + 1]);
+        }
+        file.close();
+        new File("large.bin").delete();
+    }
+
+
+    /**
+     * Checks that invalid settings are refused as they are parsed, not
+     * later when the sort is built.
+     */
+    public void testRejectsBadOptions() {
+        String[] settings = { "--policy=lfu", "--policy=LRU",
+            "--write-behind=-1", "--prefetch=-2" };
+        for (String setting : settings) {
+            Exception thrown = null;
+            try {
+                SortOptions.parse(new String[] { setting }, 0);
+            }
+            catch (IllegalArgumentException e) {
+                thrown = e;
+            }
+            assertNotNull(thrown);
+        }
+        assertEquals("clock", SortOptions.parse(new String[] {
+            "--policy=clock" }, 0).getPolicy());
+    }
+
+
+    /**
+     * Checks that the quicksort picks the middle index as its pivot unless
+     * told otherwise, and that choosing it explicitly does not count as
+     * tuning the quicksort.
+     */
+    public void testDefaultPivot() {
+        SortOptions options = new SortOptions();
+        assertEquals("middle", options.getPivot());
+        assertFalse(SortOptions.parse(new String[] { "--pivot=middle" }, 0)
+            .tunesQuicksort());
+        assertTrue(SortOptions.parse(new String[] { "--pivot=ninther" }, 0)
+            .tunesQuicksort());
+    }
+
+
+    /**
+     * Checks removal from a BlockIndex, which shifts the later entries of
+     * a probe run back instead of leaving tombstones. A table of 8 slots
+     * holding 7 blocks is all one run of collisions, so removing each block
+     * in turn removes from the middle of a chain; every other block must
+     * still be found. Random puts and removes are then checked against a
+     * HashMap.
+     */
+    public void testBlockIndexRemoval() {
+        for (int removed = 0; removed < 7; removed++) {
+            BlockIndex index = new BlockIndex(4);
+            for (int k = 0; k < 7; k++) {
+                index.put(k * 1000L + 3, k);
+            }
+            assertEquals(removed, index.remove(removed * 1000L + 3));
+            assertEquals(6, index.size());
+            for (int k = 0; k < 7; k++) {
+                assertEquals(k == removed ? -1 : k, index.get(k * 1000L + 3));
+            }
+        }
+        Random random = new Random(5040);
+        BlockIndex index = new BlockIndex(16);
+        HashMap<Long, Integer> model = new HashMap<Long, Integer>();
+        for (int step = 0; step < 20000; step++) {
+            long block = random.nextInt(40);
+            if (random.nextBoolean() && model.size() < 31) {
+                index.put(block, step);
+                model.put(block, step);
+            }
+            else {
+                Integer frame = model.remove(block);
+                assertEquals(frame == null ? -1 : frame, index.remove(block));
+            }
+            assertEquals(model.size(), index.size());
+            for (long key = 0; key < 40; key++) {
+                Integer frame = model.get(key);
+                assertEquals(frame == null ? -1 : frame, index.get(key));
+            }
+        }
+    }
+
+
+    /**
+     * Sorts with a presort pass of one block per chunk and of one pool per
+     * chunk, and checks the file and the number of chunks reported.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testPresort() throws Exception {
+        String[] presorts = { "block", "pool" };
+        String[] chunks = { "20 of 1 blocks", "4 of 5 blocks" };
+        for (int k = 0; k < presorts.length; k++) {
+            Quicksort.generateFile("presort.bin", "20", 'b');
+            new File("presortStat.txt").delete();
+            Quicksort.main(new String[] { "presort.bin", "5",
+                "presortStat.txt", "--presort=" + presorts[k] });
+            assertTrue(fileChecker.checkFile("presort.bin"));
+            String stats = new String(Files.readAllBytes(new File(
+                "presortStat.txt").toPath()));
+            assertTrue(stats.contains("Presorted Chunks: " + chunks[k]
+                + System.lineSeparator()));
+        }
+    }
+
+    /**
+     * Sorts with --jmx=on and reads the pool's MBean from the platform
+     * MBean server while the sort runs. Each read of its disk reads and
+     * writes is bracketed by reads of the pool's own counters, which only
+     * grow, so the MBean must report a value between the two. The MBean
+     * must be gone once the sort is done.
+     *
+     * @throws Exception
+     *             either a IOException or a JMException
+     */
+    public void testJmxCounters() throws Exception {
+        Quicksort.generateFile("jmx.bin", "60", 'b');
+        Sorter sorter = new Sorter("jmx.bin", 2, "jmxStat.txt", SortOptions
+            .parse(new String[] { "--jmx=on" }, 0));
+        BufferPool pool = (BufferPool)sorter.getPool();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("BufferPool:type=BufferPool,name="
+            + ObjectName.quote("jmx.bin"));
+        IOException[] failure = new IOException[1];
+        Thread sort = new Thread(() -> {
+            try {
+                sorter.writeTime();
+            }
+            catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        sort.start();
+        int seen = 0;
+        while (sort.isAlive()) {
+            long reads = pool.discRead();
+            long writes = pool.discWrite();
+            try {
+                long beanReads = (Long)server.getAttribute(name, "DiscReads");
+                long beanWrites = (Long)server.getAttribute(name,
+                    "DiscWrites");
+                assertTrue(reads <= beanReads);
+                assertTrue(beanReads <= pool.discRead());
+                assertTrue(writes <= beanWrites);
+                assertTrue(beanWrites <= pool.discWrite());
+                seen++;
+            }
+            catch (InstanceNotFoundException e) {
+                // not registered yet, or already unregistered
+            }
+        }
+        sort.join();
+        assertNull(failure[0]);
+        assertTrue(seen > 0);
+        assertFalse(server.isRegistered(name));
+        assertTrue(fileChecker.checkFile("jmx.bin"));
+    }
+
+    /**
+     * Checks that a load whose disk access fails does not install the new
+     * block. When the write of the evicted dirty block fails, that block
+     * must stay resident with its changes; when the read of the new block
+     * fails, the new block must not be resident, so that asking for it
+     * again reads it again instead of returning the frame's stale bytes.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testFailedLoad() throws Exception {
+        Quicksort.generateFile("fail.bin", "4", 'b');
+        byte[] record = { 1, 2, 3, 4 };
+        byte[] read = new byte[4];
+        for (int dirty = 0; dirty < 2; dirty++) {
+            RandomAccessFile file = new RandomAccessFile("fail.bin", "rw");
+            BufferPool pool = new BufferPool(file.getChannel(), 1,
+                ReplacementPolicy.forName("lru", 1));
+            pool.getBytes(read, 4, 0);
+            if (dirty == 1) {
+                pool.insert(record, 4, 0);
+            }
+            file.close();
+            for (int attempt = 0; attempt < 2; attempt++) {
+                Exception thrown = null;
+                try {
+                    pool.getBytes(read, 4, 1024);
+                }
+                catch (UncheckedIOException e) {
+                    thrown = e;
+                }
+                assertNotNull(thrown);
+            }
+            if (dirty == 1) {
+                pool.getBytes(read, 4, 0);
+                assertTrue(Arrays.equals(record, read));
+            }
+        }
+    }
+
+    /**
+     * Makes a pass of an out-of-core sort fail by leaving a directory where
+     * its scratch file goes, and checks that the scratch files are deleted
+     * rather than left next to the data.
+     *
+     * @throws Exception
+     *             either a IOException or FileNotFoundException
+     */
+    public void testScratchCleanup() throws Exception {
+        String[] engines = { "merge", "radix" };
+        String[] blocked = { ".merge", ".radix" };
+        for (int k = 0; k < engines.length; k++) {
+            Quicksort.generateFile("scratch.bin", "20", 'b');
+            File blocker = new File("scratch.bin" + blocked[k]);
+            blocker.mkdir();
+            Exception thrown = null;
+            try {
+                Quicksort.main(new String[] { "scratch.bin", "3",
+                    "scratchStat.txt", "--engine=" + engines[k] });
+            }
+            catch (IOException e) {
+                thrown = e;
+            }
+            assertNotNull(thrown);
+            assertFalse(new File("scratch.bin.run").exists());
+            assertFalse(blocker.exists());
+        }
+    }
+
+    /**
+     * Checks the in-place sort of the in-memory engine against Arrays.sort
+     * on random records of few and of many distinct values, and that it
+     * allocates nothing on input of long ascending runs, which is where
+     * Arrays.sort allocates a buffer the size of the input to merge them.
+     */
+    public void testInMemorySortInPlace() {
+        InMemorySorter sorter = new InMemorySorter("memory.bin",
+            "memoryStat.txt");
+        Random random = new Random(5040);
+        int[] sizes = { 0, 1, 31, 33, 1000, 100000 };
+        for (int size : sizes) {
+            for (int few = 0; few < 2; few++) {
+                int[] data = new int[size];
+                for (int k = 0; k < size; k++) {
+                    data[k] = few == 1
+                        ? (random.nextInt(4) - 2) << 16
+                        : random.nextInt();
+                }
+                int[] expected = data.clone();
+                Arrays.sort(expected);
+                sorter.sortRecords(data);
+                assertTrue(Arrays.equals(expected, data));
+            }
+        }
+        java.lang.management.ThreadMXBean threads = ManagementFactory
+            .getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean counter =
+            (com.sun.management.ThreadMXBean)threads;
+        long id = Thread.currentThread().getId();
+        int[] runs = new int[1 << 20];
+        for (int run = 0; run < 2; run++) {
+            for (int k = 0; k < runs.length; k++) {
+                runs[k] = (k % 4096) * 7919 - k / 4096;
+            }
+            long allocated = counter.getThreadAllocatedBytes(id);
+            sorter.sortRecords(runs);
+            allocated = counter.getThreadAllocatedBytes(id) - allocated;
+            assertEquals(0, allocated);
+        }
+        for (int k = 1; k < runs.length; k++) {
+            assertTrue(runs[k - 1] <= runs[k]);
+        }
+    }
 // /**
 // * Get code coverage of the class declaration.
 // */
@@ -0,0 +1,346 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The RadixSorter class sorts a file with a stable least significant digit
+ * radix sort on the 16-bit key, in two passes of 8 bits. Keys are signed, so
+ * the high digit has its sign bit flipped. Input is always streamed block
+ * by block through a small BufferPool that reads ahead; output is written
+ * with positional channel writes, since writing through a pool would read
+ * every block before overwriting it.
+ *
+ * When two copies of the file fit in numBuffers blocks it is sorted in
+ * memory between two int arrays of its size, and a pass whose digit is the
+ * same for every record is skipped. Otherwise one scan counts both digits, a second scatters the
+ * records by low digit into their buckets of a spill file, and a third
+ * scatters the spill file by high digit back into the data file. Each
+ * bucket collects records in a buffer of its own, of at least one block,
+ * and writes it to the bucket's next free place when full. The buckets
+ * take RADIX blocks even when numBuffers is smaller, since smaller bucket
+ * writes would cost more writes than they save memory.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class RadixSorter implements SortEngine {
+    private static final int BLOCKSIZE = BufferPool.BUFFERSIZE;
+    private static final int RECORDS = BLOCKSIZE / BufferPoolADT.RECORDSIZE;
+    private static final int RADIX = 256;
+    private static final int READAHEAD = 8;
+    private File statsFile;
+    private String filename;
+    private int numBuffers;
+    private byte[] block = new byte[BLOCKSIZE];
+    private IntBuffer blockInts = ByteBuffer.wrap(block).asIntBuffer();
+    private int[] buckets;
+    private int bucketSize;
+    private ByteBuffer out;
+    private IntBuffer outInts;
+    private long reads = 0;
+    private long writes = 0;
+    private int passes = 0;
+    private boolean inMemory;
+    private int time = 0;
+
+    /**
+     * Constructor for the RadixSorter class.
+     *
+     * @param dataFileName
+     *            the name of the file to be sorted
+     * @param numBuffers
+     *            the number of blocks of memory the sort may use
+     * @param statFileName
+     *            the name of the output file for statistics
+     */
+    public RadixSorter(
+        String dataFileName,
+        int numBuffers,
+        String statFileName) {
+        filename = dataFileName;
+        statsFile = new File(statFileName);
+        this.numBuffers = Math.max(1, numBuffers);
+    }
+
+
+    /**
+     * Sort the file, measure the time taken and write the statistics.
+     *
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void writeTime() throws IOException {
+        final long start = System.currentTimeMillis();
+        sort();
+        final long end = System.currentTimeMillis();
+        time = (int)(end - start);
+        writeFile(statsFile);
+    }
+
+
+    /**
+     * Write statistics to the specified output file, in the format of
+     * Sorter followed by the number of scatter passes. There is no cache, so
+     * the cache hits are always 0.
+     *
+     * @param input
+     *            the output file to write statistics to
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void writeFile(File input) throws IOException {
+        PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(
+            input, true)));
+        writer.println("Sort on " + filename);
+        writer.println("Cache Hits: 0");
+        writer.println("Disk Reads: " + reads);
+        writer.println("Disk Writes: " + writes);
+        writer.println("Time is " + time);
+        writer.println("Radix Passes: " + passes + (inMemory
+            ? " (in memory)"
+            : " (out of core)"));
+        writer.close();
+    }
+
+
+    /**
+     * Sort the file in place.
+     *
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void sort() throws IOException {
+        long length = new File(filename).length();
+        long records = length / BufferPoolADT.RECORDSIZE;
+        inMemory = 2 * length <= (long)numBuffers * BLOCKSIZE;
+        if (inMemory) {
+            sortInMemory((int)records);
+        }
+        else {
+            sortOutOfCore(records);
+        }
+    }
+
+
+    /**
+     * Get one 8-bit digit of the key of a packed record.
+     *
+     * @param record
+     *            the packed record
+     * @param high
+     *            true for the high digit, false for the low one
+     * @return the digit, from 0 to 255
+     */
+    private static int digit(int record, boolean high) {
+        if (high) {
+            return ((record >>> 24) ^ 0x80) & 0xFF;
+        }
+        return (record >>> 16) & 0xFF;
+    }
+
+
+    private void sortInMemory(int records) throws IOException {
+        int[] data = new int[records];
+        int[] scratch = new int[records];
+        BufferPool pool = openReader(filename);
+        for (long start = 0; start < records; start += RECORDS) {
+            int count = (int)Math.min(RECORDS, records - start);
+            readBlock(pool, start, count, data, (int)start);
+        }
+        for (int pass = 0; pass < 2; pass++) {
+            boolean high = pass == 1;
+            int[] next = new int[RADIX];
+            for (int i = 0; i < records; i++) {
+                next[digit(data[i], high)]++;
+            }
+            if (records == 0 || next[digit(data[0], high)] == records) {
+                continue;
+            }
+            int sum = 0;
+            for (int d = 0; d < RADIX; d++) {
+                int count = next[d];
+                next[d] = sum;
+                sum += count;
+            }
+            for (int i = 0; i < records; i++) {
+                scratch[next[digit(data[i], high)]++] = data[i];
+            }
+            int[] temp = data;
+            data = scratch;
+            scratch = temp;
+            passes++;
+        }
+        reads += pool.discRead();
+        pool.close();
+        RandomAccessFile file = new RandomAccessFile(filename, "rw");
+        RecordTransfer transfer = new RecordTransfer(filename, 1);
+        try {
+            transfer.write(file.getChannel(), data, 0, records, 0);
+        }
+        finally {
+            file.close();
+        }
+        writes += transfer.writes();
+    }
+
+
+    private void sortOutOfCore(long records) throws IOException {
+        long[][] counts = new long[2][RADIX];
+        BufferPool pool = openReader(filename);
+        int[] chunk = new int[RECORDS];
+        for (long start = 0; start < records; start += RECORDS) {
+            int count = (int)Math.min(RECORDS, records - start);
+            readBlock(pool, start, count, chunk, 0);
+            for (int i = 0; i < count; i++) {
+                counts[0][digit(chunk[i], false)]++;
+                counts[1][digit(chunk[i], true)]++;
+            }
+        }
+        reads += pool.discRead();
+        pool.close();
+
+        File spillName = new File(filename + ".radix");
+        try {
+            RandomAccessFile spill = new RandomAccessFile(spillName, "rw");
+            try {
+                spill.setLength(records * BufferPoolADT.RECORDSIZE);
+                scatter(filename, spill.getChannel(), records, counts[0],
+                    false);
+            }
+            finally {
+                spill.close();
+            }
+            RandomAccessFile data = new RandomAccessFile(filename, "rw");
+            try {
+                scatter(spillName.getPath(), data.getChannel(), records,
+                    counts[1], true);
+            }
+            finally {
+                data.close();
+            }
+        }
+        finally {
+            spillName.delete();
+        }
+    }
+
+
+    /**
+     * Stream a file through a BufferPool and write each record into the
+     * bucket of its digit in the target.
+     *
+     * @param source
+     *            the name of the file to read
+     * @param target
+     *            the channel to write the buckets to
+     * @param records
+     *            the number of records
+     * @param counts
+     *            the number of records of each digit
+     * @param high
+     *            true to scatter by the high digit, false by the low one
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    private void scatter(
+        String source,
+        FileChannel target,
+        long records,
+        long[] counts,
+        boolean high)
+        throws IOException {
+        bucketSize = Math.min(16 * RECORDS, Math.max(RECORDS, numBuffers
+            * RECORDS / RADIX));
+        long[] next = new long[RADIX];
+        long sum = 0;
+        for (int d = 0; d < RADIX; d++) {
+            next[d] = sum;
+            sum += counts[d];
+        }
+        buckets = new int[RADIX * bucketSize];
+        int[] fill = new int[RADIX];
+        out = ByteBuffer.allocate(bucketSize * BufferPoolADT.RECORDSIZE);
+        outInts = out.asIntBuffer();
+        BufferPool pool = openReader(source);
+        try {
+            int[] chunk = new int[RECORDS];
+            for (long start = 0; start < records; start += RECORDS) {
+                int count = (int)Math.min(RECORDS, records - start);
+                readBlock(pool, start, count, chunk, 0);
+                for (int i = 0; i < count; i++) {
+                    int d = digit(chunk[i], high);
+                    buckets[d * bucketSize + fill[d]++] = chunk[i];
+                    if (fill[d] == bucketSize) {
+                        next[d] = spill(target, d, fill[d], next[d]);
+                        fill[d] = 0;
+                    }
+                }
+            }
+            for (int d = 0; d < RADIX; d++) {
+                if (fill[d] > 0) {
+                    spill(target, d, fill[d], next[d]);
+                }
+            }
+        }
+        finally {
+            reads += pool.discRead();
+            pool.close();
+        }
+        passes++;
+    }
+
+
+    /**
+     * Write the records collected for one bucket to its next free place.
+     *
+     * @param target
+     *            the channel to write to
+     * @param d
+     *            the digit of the bucket
+     * @param count
+     *            the number of records collected
+     * @param next
+     *            the index of the bucket's next free place
+     * @return the index of the bucket's next free place after the write
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    private long spill(FileChannel target, int d, int count, long next)
+        throws IOException {
+        outInts.clear();
+        outInts.put(buckets, d * bucketSize, count);
+        out.clear();
+        out.limit(count * BufferPoolADT.RECORDSIZE);
+        long position = next * BufferPoolADT.RECORDSIZE;
+        while (out.hasRemaining()) {
+            target.write(out, position + out.position());
+        }
+        writes += (out.limit() + BLOCKSIZE - 1) / BLOCKSIZE;
+        return next + count;
+    }
+
+
+    private BufferPool openReader(String name) throws IOException {
+        BufferPool pool = new BufferPool(name, 2);
+        pool.enablePrefetch(READAHEAD);
+        return pool;
+    }
+
+
+    private void readBlock(
+        BufferPool pool,
+        long start,
+        int count,
+        int[] destination,
+        int offset) {
+        pool.getRecords(block, count, start);
+        blockInts.clear();
+        blockInts.get(destination, offset, count);
+    }
+}
@@ -0,0 +1,145 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The RecordTransfer class moves records, packed big-endian into ints,
+ * between an int array and a file with positional channel transfers,
+ * through a staging buffer of a fixed number of blocks. It is the bulk I/O
+ * of the engines that sort outside the buffer pool, and counts what it
+ * moves in blocks, as the buffer pool counts its disk reads and writes.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+class RecordTransfer {
+    private static final int BLOCKSIZE = BufferPool.BUFFERSIZE;
+    private String filename;
+    private ByteBuffer bytes;
+    private IntBuffer ints;
+    private long reads = 0;
+    private long writes = 0;
+
+    /**
+     * Constructor for the RecordTransfer class.
+     *
+     * @param filename
+     *            the name of the file being sorted, for error messages
+     * @param blocks
+     *            the size of the staging buffer, in blocks
+     */
+    RecordTransfer(String filename, int blocks) {
+        this.filename = filename;
+        bytes = ByteBuffer.allocate(Math.max(1, blocks) * BLOCKSIZE);
+        ints = bytes.asIntBuffer();
+    }
+
+
+    /**
+     * Read records from a channel into an int array, in transfers of at
+     * most the staging buffer.
+     *
+     * @param channel
+     *            the channel to read from
+     * @param destination
+     *            the array to read into
+     * @param offset
+     *            the index in the array of the first record
+     * @param count
+     *            the number of records to read
+     * @param first
+     *            the index in the file of the first record
+     * @throws IOException
+     *             if there is an issue with I/O operations, or the file
+     *             ends before the last record
+     */
+    void read(
+        FileChannel channel,
+        int[] destination,
+        int offset,
+        int count,
+        long first)
+        throws IOException {
+        long position = first * BufferPoolADT.RECORDSIZE;
+        while (count > 0) {
+            int chunk = Math.min(count, ints.capacity());
+            bytes.clear();
+            bytes.limit(chunk * BufferPoolADT.RECORDSIZE);
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, position + bytes.position()) < 0) {
+                    throw new EOFException("Unexpected end of " + filename);
+                }
+            }
+            ints.clear();
+            ints.get(destination, offset, chunk);
+            reads += (bytes.limit() + BLOCKSIZE - 1) / BLOCKSIZE;
+            position += bytes.limit();
+            offset += chunk;
+            count -= chunk;
+        }
+    }
+
+
+    /**
+     * Write records from an int array to a channel, in transfers of at most
+     * the staging buffer.
+     *
+     * @param channel
+     *            the channel to write to
+     * @param source
+     *            the array to write from
+     * @param offset
+     *            the index in the array of the first record
+     * @param count
+     *            the number of records to write
+     * @param first
+     *            the index in the file of the first record
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    void write(
+        FileChannel channel,
+        int[] source,
+        int offset,
+        int count,
+        long first)
+        throws IOException {
+        long position = first * BufferPoolADT.RECORDSIZE;
+        while (count > 0) {
+            int chunk = Math.min(count, ints.capacity());
+            ints.clear();
+            ints.put(source, offset, chunk);
+            bytes.clear();
+            bytes.limit(chunk * BufferPoolADT.RECORDSIZE);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes, position + bytes.position());
+            }
+            writes += (bytes.limit() + BLOCKSIZE - 1) / BLOCKSIZE;
+            position += bytes.limit();
+            offset += chunk;
+            count -= chunk;
+        }
+    }
+
+
+    /**
+     * Get the number of blocks read so far.
+     *
+     * @return the number of block reads
+     */
+    long reads() {
+        return reads;
+    }
+
+
+    /**
+     * Get the number of blocks written so far.
+     *
+     * @return the number of block writes
+     */
+    long writes() {
+        return writes;
+    }
+}
@@ -0,0 +1,214 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The RecordWriter class streams records, packed big-endian into ints, to a
+ * channel or an output stream with large sequential writes. It is double
+ * buffered: records are collected in one buffer while a background thread
+ * writes the other, and the caller only waits when it has filled its
+ * buffer before the previous one was written.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class RecordWriter implements Runnable {
+    /**
+     * The size of each buffer used for sorted output, in blocks.
+     */
+    public static final int DEFAULT_BLOCKS = 64;
+    private static final int BLOCKSIZE = BufferPool.BUFFERSIZE;
+    private WritableByteChannel channel;
+    private ByteBuffer filling;
+    private IntBuffer fillingInts;
+    private ByteBuffer spare;
+    private IntBuffer spareInts;
+    private ByteBuffer full = null;
+    private boolean closed = false;
+    private IOException failure = null;
+    private long bytes = 0;
+    private Thread writer;
+
+    /**
+     * Constructor for the RecordWriter class. Starts the writer thread.
+     *
+     * @param channel
+     *            the channel to write to
+     * @param blocks
+     *            the size of each of the two buffers, in blocks
+     */
+    public RecordWriter(WritableByteChannel channel, int blocks) {
+        this.channel = channel;
+        filling = ByteBuffer.allocate(Math.max(1, blocks) * BLOCKSIZE);
+        fillingInts = filling.asIntBuffer();
+        spare = ByteBuffer.allocate(filling.capacity());
+        spareInts = spare.asIntBuffer();
+        writer = new Thread(this, "record-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+
+    /**
+     * Constructor for a RecordWriter over an output stream.
+     *
+     * @param out
+     *            the stream to write to
+     * @param blocks
+     *            the size of each of the two buffers, in blocks
+     */
+    public RecordWriter(OutputStream out, int blocks) {
+        this(Channels.newChannel(out), blocks);
+    }
+
+
+    /**
+     * Appends records to the stream.
+     *
+     * @param records
+     *            the array holding the records
+     * @param offset
+     *            the index in the array of the first record
+     * @param count
+     *            the number of records
+     * @throws IOException
+     *             if an earlier write failed or the wait was interrupted
+     */
+    public void write(int[] records, int offset, int count)
+        throws IOException {
+        while (count > 0) {
+            int chunk = Math.min(count, fillingInts.remaining());
+            fillingInts.put(records, offset, chunk);
+            offset += chunk;
+            count -= chunk;
+            if (!fillingInts.hasRemaining()) {
+                hand();
+            }
+        }
+    }
+
+
+    /**
+     * Writes the records still buffered, waits for every write, stops the
+     * writer thread and closes the channel.
+     *
+     * @throws IOException
+     *             if a write failed or the wait was interrupted
+     */
+    public void close() throws IOException {
+        if (fillingInts.position() > 0) {
+            hand();
+        }
+        synchronized (this) {
+            while (full != null && failure == null) {
+                await();
+            }
+            closed = true;
+            notifyAll();
+        }
+        check();
+        channel.close();
+    }
+
+
+    /**
+     * Gets the number of bytes written so far.
+     *
+     * @return the number of bytes written
+     */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+
+    /**
+     * The writer thread: writes each buffer handed to it, then gives it back
+     * as the spare.
+     */
+    @Override
+    public void run() {
+        while (true) {
+            ByteBuffer buffer;
+            synchronized (this) {
+                while (full == null && !closed) {
+                    try {
+                        wait();
+                    }
+                    catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (full == null) {
+                    return;
+                }
+                buffer = full;
+            }
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                }
+            }
+            synchronized (this) {
+                bytes += buffer.limit();
+                full = null;
+                notifyAll();
+            }
+        }
+    }
+
+
+    /**
+     * Hands the filling buffer to the writer thread, once it has finished
+     * the previous one, and carries on filling the other buffer.
+     *
+     * @throws IOException
+     *             if an earlier write failed or the wait was interrupted
+     */
+    private void hand() throws IOException {
+        synchronized (this) {
+            while (full != null && failure == null) {
+                await();
+            }
+            check();
+            filling.clear();
+            filling.limit(fillingInts.position() * BufferPoolADT.RECORDSIZE);
+            full = filling;
+            notifyAll();
+        }
+        ByteBuffer bytesTemp = filling;
+        IntBuffer intsTemp = fillingInts;
+        filling = spare;
+        fillingInts = spareInts;
+        spare = bytesTemp;
+        spareInts = intsTemp;
+        fillingInts.clear();
+    }
+
+
+    private void await() throws IOException {
+        try {
+            wait();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                "Interrupted while waiting for the record writer");
+        }
+    }
+
+
+    private void check() throws IOException {
+        if (failure != null) {
+            throw new IOException("Record writer failed", failure);
+        }
+    }
+}
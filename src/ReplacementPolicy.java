@@ -0,0 +1,107 @@
+/**
+ * The ReplacementPolicy interface for deciding which buffer pool frame is
+ * evicted when a block has to be read into a full pool. The pool reports
+ * every hit and every newly loaded frame, and each policy keeps its own
+ * hit/miss statistics.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public interface ReplacementPolicy {
+
+    /**
+     * Records an access to a block that is already resident.
+     *
+     * @param frame
+     *            the frame holding the block
+     */
+    public void hit(int frame);
+
+
+    /**
+     * Records that a block was read into a frame after a miss.
+     *
+     * @param frame
+     *            the frame the block was read into
+     * @param block
+     *            the block that was read
+     */
+    public void admit(int frame, long block);
+
+
+    /**
+     * Takes a frame out of replacement while it is pinned. Hits on a pinned
+     * frame are still counted.
+     *
+     * @param frame
+     *            the frame that was pinned
+     */
+    public void pin(int frame);
+
+
+    /**
+     * Returns a frame whose last pin was released to replacement, as the
+     * most recently used frame.
+     *
+     * @param frame
+     *            the frame that was unpinned
+     */
+    public void unpin(int frame);
+
+
+    /**
+     * Chooses an unpinned frame to evict and stops tracking it. Only called
+     * when every frame of the pool is in use and at least one is unpinned.
+     *
+     * @return the frame to evict
+     */
+    public int victim();
+
+
+    /**
+     * Gets the number of accesses that found their block resident.
+     *
+     * @return the number of hits
+     */
+    public long hits();
+
+
+    /**
+     * Gets the number of accesses that had to read their block.
+     *
+     * @return the number of misses
+     */
+    public long misses();
+
+
+    /**
+     * Gets the name the policy is selected by.
+     *
+     * @return the name of the policy
+     */
+    public String name();
+
+
+    /**
+     * Creates a policy from its command line name.
+     *
+     * @param name
+     *            one of "lru", "clock" or "2q"
+     * @param numBuffers
+     *            the number of frames in the pool
+     * @return the new policy
+     */
+    public static ReplacementPolicy forName(String name, int numBuffers) {
+        switch (name) {
+            case "lru":
+                return new LRUPolicy(numBuffers);
+            case "clock":
+                return new ClockPolicy(numBuffers);
+            case "2q":
+                return new TwoQueuePolicy(numBuffers);
+            default:
+                throw new IllegalArgumentException(
+                    "Unknown replacement policy: " + name);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The SortEngine interface for the algorithms that can sort a data file. An
+ * engine sorts the file in place, times the sort and appends its statistics
+ * to the statistics file, starting with the lines every engine writes: the
+ * file name, cache hits, disk reads, disk writes and time.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public interface SortEngine {
+
+    /**
+     * Sorts the file, measuring the time taken, and writes the statistics.
+     *
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void writeTime() throws IOException;
+
+
+    /**
+     * Creates the engine selected by the options: the quicksort, on one
+     * thread or several, the external merge sort or the radix sort. A
+     * quicksort of a file that fits in the memory budget is done in memory
+     * instead. Without a --memory option, the budget is the size of the
+     * buffer pool, unless an option of the pool or of the quicksort is set,
+     * in which case the file is always sorted through the pool; a --memory
+     * budget the file fits in cannot be combined with those options, since
+     * the in-memory sort would ignore them. A sort with an
+     * output file streams the sorted records there with the merge engine
+     * and leaves the data file as it was; the output must not be the data
+     * file itself, which opening the output would truncate. The merge and
+     * radix engines use no buffer pool and no quicksort, so the options of
+     * those are refused with them, and with an output file, as is any
+     * engine but merge chosen along with an output file.
+     *
+     * @param dataFileName
+     *            the name of the file to be sorted
+     * @param numBuffers
+     *            the number of buffer slots available
+     * @param statFileName
+     *            the name of the output file for statistics
+     * @param options
+     *            the optional settings of the sort
+     * @return the engine
+     * @throws IOException
+     *             if the data file or the output cannot be opened
+     */
+    public static SortEngine create(
+        String dataFileName,
+        int numBuffers,
+        String statFileName,
+        SortOptions options)
+        throws IOException {
+        boolean tuned = options.tunesQuicksort();
+        if (options.getOutput() != null) {
+            if (options.choseEngine() && !options.getEngine().equals(
+                "merge")) {
+                throw new IllegalArgumentException("--output streams with the "
+                    + "merge engine, not --engine=" + options.getEngine());
+            }
+            if (tuned) {
+                throw new IllegalArgumentException("--output streams with the "
+                    + "merge engine, which ignores the pool and quicksort "
+                    + "options");
+            }
+            checkOutput(dataFileName, options.getOutput());
+            RecordWriter sink = new RecordWriter(FileChannel.open(Paths.get(
+                options.getOutput()), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING),
+                RecordWriter.DEFAULT_BLOCKS);
+            return new MergeSorter(dataFileName, numBuffers, statFileName,
+                sink, options.getOutput());
+        }
+        if (tuned && !options.getEngine().equals("quicksort")) {
+            throw new IllegalArgumentException("--engine=" + options
+                .getEngine() + " ignores the pool and quicksort options");
+        }
+        if (options.getEngine().equals("merge")) {
+            return new MergeSorter(dataFileName, numBuffers, statFileName);
+        }
+        if (options.getEngine().equals("radix")) {
+            return new RadixSorter(dataFileName, numBuffers, statFileName);
+        }
+        long budget = options.getMemory();
+        if (budget < 0) {
+            budget = tuned ? 0 : (long)numBuffers * BufferPool.BUFFERSIZE;
+        }
+        if (budget > 0 && InMemorySorter.fits(dataFileName, budget)) {
+            if (tuned) {
+                throw new IllegalArgumentException("The file fits in --memory="
+                    + budget + ", whose in-memory sort ignores the pool and "
+                    + "quicksort options");
+            }
+            return new InMemorySorter(dataFileName, statFileName);
+        }
+        if (options.getThreads() > 1) {
+            return new ParallelSorter(dataFileName, numBuffers, statFileName,
+                options);
+        }
+        return new Sorter(dataFileName, numBuffers, statFileName, options);
+    }
+
+
+    /**
+     * Refuse an output file that is the data file, under the same name or
+     * another. An existing output is compared with Files.isSameFile, which
+     * also sees through links; one that does not exist yet by its
+     * normalized absolute path.
+     *
+     * @param dataFileName
+     *            the name of the file to be sorted
+     * @param output
+     *            the name of the output file
+     * @throws IOException
+     *             if either file cannot be examined
+     */
+    private static void checkOutput(String dataFileName, String output)
+        throws IOException {
+        Path data = Paths.get(dataFileName);
+        Path out = Paths.get(output);
+        boolean same;
+        if (Files.exists(out)) {
+            same = Files.isSameFile(data, out);
+        }
+        else {
+            same = data.toAbsolutePath().normalize().equals(out
+                .toAbsolutePath().normalize());
+        }
+        if (same) {
+            throw new IllegalArgumentException("The output " + output
+                + " is the data file " + dataFileName);
+        }
+    }
+}
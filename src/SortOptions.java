@@ -0,0 +1,489 @@
+/**
+ * The SortOptions class holds the optional settings of a sort, parsed from
+ * the command line arguments that follow the data file, buffer count and
+ * statistics file. Each option is given as --name=value.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class SortOptions {
+    private String policy = "lru";
+    private String backend = "buffer";
+    private int writeBehind = 0;
+    private int prefetch = 0;
+    private int threads = 1;
+    private String engine = "quicksort";
+    private boolean engineChosen = false;
+    private long memory = -1;
+    private String pivot = "middle";
+    private String partition = "two";
+    private String presort = "none";
+    private boolean jmx = false;
+    private boolean coalesce = false;
+    private String output = null;
+    private int shadow = 0;
+
+    /**
+     * Parses the options in the given arguments.
+     *
+     * @param args
+     *            the command line arguments
+     * @param start
+     *            the index of the first option
+     * @return the parsed options
+     */
+    public static SortOptions parse(String[] args, int start) {
+        SortOptions options = new SortOptions();
+        for (int i = start; i < args.length; i++) {
+            String arg = args[i];
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Malformed option: "
+                    + arg);
+            }
+            String name = arg.substring(2, equals);
+            String value = arg.substring(equals + 1);
+            switch (name) {
+                case "policy":
+                    options.setPolicy(value);
+                    break;
+                case "backend":
+                    options.setBackend(value);
+                    break;
+                case "write-behind":
+                    options.setWriteBehind(Integer.parseInt(value));
+                    break;
+                case "prefetch":
+                    options.setPrefetch(Integer.parseInt(value));
+                    break;
+                case "threads":
+                    options.setThreads(Integer.parseInt(value));
+                    break;
+                case "engine":
+                    options.setEngine(value);
+                    break;
+                case "memory":
+                    options.setMemory(Long.parseLong(value));
+                    break;
+                case "pivot":
+                    options.setPivot(value);
+                    break;
+                case "partition":
+                    options.setPartition(value);
+                    break;
+                case "presort":
+                    options.setPresort(value);
+                    break;
+                case "jmx":
+                    options.setJmx(value);
+                    break;
+                case "coalesce":
+                    options.setCoalesce(value);
+                    break;
+                case "output":
+                    options.setOutput(value);
+                    break;
+                case "shadow":
+                    options.setShadow(Integer.parseInt(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: "
+                        + arg);
+            }
+        }
+        return options;
+    }
+
+
+    /**
+     * Get the name of the replacement policy of the buffer pool.
+     *
+     * @return the replacement policy name
+     */
+    public String getPolicy() {
+        return policy;
+    }
+
+
+    /**
+     * Set the name of the replacement policy of the buffer pool.
+     *
+     * @param input
+     *            one of "lru", "clock" or "2q"
+     */
+    public void setPolicy(String input) {
+        if (!input.equals("lru") && !input.equals("clock") && !input.equals(
+            "2q")) {
+            throw new IllegalArgumentException("Unknown replacement policy: "
+                + input);
+        }
+        policy = input;
+    }
+
+
+    /**
+     * Get the name of the storage backend: "buffer" for the explicit buffer
+     * pool, "mmap" for the memory-mapped file.
+     *
+     * @return the backend name
+     */
+    public String getBackend() {
+        return backend;
+    }
+
+
+    /**
+     * Set the name of the storage backend.
+     *
+     * @param input
+     *            either "buffer" or "mmap"
+     */
+    public void setBackend(String input) {
+        if (!input.equals("buffer") && !input.equals("mmap")) {
+            throw new IllegalArgumentException("Unknown backend: " + input);
+        }
+        backend = input;
+    }
+
+
+    /**
+     * Get the depth of the write-behind queue of the buffer pool.
+     *
+     * @return the queue depth in blocks, 0 when dirty evictions are written
+     *         synchronously
+     */
+    public int getWriteBehind() {
+        return writeBehind;
+    }
+
+
+    /**
+     * Set the depth of the write-behind queue of the buffer pool.
+     *
+     * @param input
+     *            the queue depth in blocks, or 0 to disable write-behind
+     */
+    public void setWriteBehind(int input) {
+        if (input < 0) {
+            throw new IllegalArgumentException("Write-behind depth must not "
+                + "be negative: " + input);
+        }
+        writeBehind = input;
+    }
+
+
+    /**
+     * Get the number of blocks the buffer pool reads ahead of a scan.
+     *
+     * @return the prefetch depth in blocks, 0 when prefetching is off
+     */
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+
+    /**
+     * Set the number of blocks the buffer pool reads ahead of a scan.
+     *
+     * @param input
+     *            the prefetch depth in blocks, or 0 to disable prefetching
+     */
+    public void setPrefetch(int input) {
+        if (input < 0) {
+            throw new IllegalArgumentException("Prefetch depth must not be "
+                + "negative: " + input);
+        }
+        prefetch = input;
+    }
+
+
+    /**
+     * Get the number of threads that sort. More than one selects the
+     * ParallelSorter.
+     *
+     * @return the number of sorting threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+
+    /**
+     * Set the number of threads that sort.
+     *
+     * @param input
+     *            the number of sorting threads, at least 1
+     */
+    public void setThreads(int input) {
+        if (input < 1) {
+            throw new IllegalArgumentException("Thread count must be "
+                + "positive: " + input);
+        }
+        threads = input;
+    }
+
+
+    /**
+     * Get the name of the sort engine: "quicksort" for the quicksort through
+     * the buffer pool, "merge" for the external merge sort, "radix" for the
+     * radix sort.
+     *
+     * @return the engine name
+     */
+    public String getEngine() {
+        return engine;
+    }
+
+
+    /**
+     * Set the name of the sort engine.
+     *
+     * @param input
+     *            one of "quicksort", "merge" or "radix"
+     */
+    public void setEngine(String input) {
+        if (!input.equals("quicksort") && !input.equals("merge") && !input
+            .equals("radix")) {
+            throw new IllegalArgumentException("Unknown engine: " + input);
+        }
+        engine = input;
+        engineChosen = true;
+    }
+
+
+    /**
+     * Check whether the engine was chosen, rather than left at its default.
+     *
+     * @return true if setEngine was called
+     */
+    public boolean choseEngine() {
+        return engineChosen;
+    }
+
+
+    /**
+     * Get the memory budget under which the quicksort engine sorts the whole
+     * file in memory.
+     *
+     * @return the budget in bytes, 0 when the file is never sorted in memory,
+     *         or -1 for the size of the buffer pool
+     */
+    public long getMemory() {
+        return memory;
+    }
+
+
+    /**
+     * Set the memory budget under which the quicksort engine sorts the whole
+     * file in memory.
+     *
+     * @param input
+     *            the budget in bytes, or 0 to always sort through the pool
+     */
+    public void setMemory(long input) {
+        if (input < 0) {
+            throw new IllegalArgumentException("Memory budget must not be "
+                + "negative: " + input);
+        }
+        memory = input;
+    }
+
+
+    /**
+     * Check whether any option of the buffer pool or of the quicksort is
+     * set to other than its default. Those options only mean something to
+     * a sort through the pool.
+     *
+     * @return true if the pool or the quicksort is tuned
+     */
+    public boolean tunesQuicksort() {
+        SortOptions plain = new SortOptions();
+        return !policy.equals(plain.policy) || !backend.equals(plain.backend)
+            || writeBehind != plain.writeBehind || prefetch != plain.prefetch
+            || threads != plain.threads || !pivot.equals(plain.pivot)
+            || !partition.equals(plain.partition) || !presort.equals(
+                plain.presort) || jmx != plain.jmx || coalesce != plain.coalesce
+            || shadow != plain.shadow;
+    }
+
+
+    /**
+     * Get the name of the pivot strategy of the quicksort, "middle" unless
+     * another was chosen. The others sample more keys per partition and
+     * cost more swaps on sorted and reverse-sorted input, so they are
+     * opt-in.
+     *
+     * @return the pivot strategy name
+     */
+    public String getPivot() {
+        return pivot;
+    }
+
+
+    /**
+     * Set the name of the pivot strategy of the quicksort.
+     *
+     * @param input
+     *            one of "middle", "median3", "ninther" or "random"
+     */
+    public void setPivot(String input) {
+        PivotStrategy.forName(input);
+        pivot = input;
+    }
+
+
+    /**
+     * Get the partition scheme of the quicksort: "two" to split each range
+     * around the pivot, "three" to also gather the keys equal to it.
+     *
+     * @return the partition scheme name
+     */
+    public String getPartition() {
+        return partition;
+    }
+
+
+    /**
+     * Set the partition scheme of the quicksort.
+     *
+     * @param input
+     *            either "two" or "three"
+     */
+    public void setPartition(String input) {
+        if (!input.equals("two") && !input.equals("three")) {
+            throw new IllegalArgumentException("Unknown partition scheme: "
+                + input);
+        }
+        partition = input;
+    }
+
+
+    /**
+     * Get the pre-pass of the quicksort: "none", "block" to sort each block
+     * in memory first, or "pool" to sort each group of as many blocks as
+     * the pool holds.
+     *
+     * @return the pre-pass name
+     */
+    public String getPresort() {
+        return presort;
+    }
+
+
+    /**
+     * Set the pre-pass of the quicksort.
+     *
+     * @param input
+     *            one of "none", "block" or "pool"
+     */
+    public void setPresort(String input) {
+        if (!input.equals("none") && !input.equals("block") && !input.equals(
+            "pool")) {
+            throw new IllegalArgumentException("Unknown presort: " + input);
+        }
+        presort = input;
+    }
+
+
+    /**
+     * Get whether the buffer pool is published as a JMX MBean while it
+     * sorts.
+     *
+     * @return true if the pool is published
+     */
+    public boolean getJmx() {
+        return jmx;
+    }
+
+
+    /**
+     * Set whether the buffer pool is published as a JMX MBean.
+     *
+     * @param input
+     *            either "on" or "off"
+     */
+    public void setJmx(String input) {
+        if (!input.equals("on") && !input.equals("off")) {
+            throw new IllegalArgumentException("Unknown jmx setting: "
+                + input);
+        }
+        jmx = input.equals("on");
+    }
+
+
+    /**
+     * Get whether the buffer pool writes each dirty eviction together with
+     * its dirty neighbours, rather than only coalescing writes on flush.
+     *
+     * @return true if evictions are coalesced
+     */
+    public boolean getCoalesce() {
+        return coalesce;
+    }
+
+
+    /**
+     * Set whether the buffer pool coalesces the writes of dirty evictions.
+     *
+     * @param input
+     *            either "on" or "off"
+     */
+    public void setCoalesce(String input) {
+        if (!input.equals("on") && !input.equals("off")) {
+            throw new IllegalArgumentException("Unknown coalesce setting: "
+                + input);
+        }
+        coalesce = input.equals("on");
+    }
+
+
+    /**
+     * Get the file the sorted records are streamed to, leaving the data
+     * file unchanged.
+     *
+     * @return the name of the output file, or null to sort in place
+     */
+    public String getOutput() {
+        return output;
+    }
+
+
+    /**
+     * Set the file the sorted records are streamed to.
+     *
+     * @param input
+     *            the name of the output file
+     */
+    public void setOutput(String input) {
+        if (input.isEmpty()) {
+            throw new IllegalArgumentException("Empty output file name");
+        }
+        output = input;
+    }
+
+
+    /**
+     * Get the size of the key shadow of the quicksort, which holds the keys
+     * of recently compared blocks in a short array, 2 bytes per record.
+     *
+     * @return the number of blocks of keys held, 0 when there is no shadow
+     */
+    public int getShadow() {
+        return shadow;
+    }
+
+
+    /**
+     * Set the size of the key shadow of the quicksort.
+     *
+     * @param input
+     *            the number of blocks of keys held, or 0 for no shadow
+     */
+    public void setShadow(int input) {
+        if (input < 0) {
+            throw new IllegalArgumentException("Shadow size must not be "
+                + "negative: " + input);
+        }
+        shadow = input;
+    }
+}
@@ -4,6 +4,10 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.function.LongToIntFunction;
+import javax.management.JMException;
 
 /**
  * The Sorter class for performing sorting operations.
@@ -11,16 +15,35 @@ import java.nio.ByteBuffer;
  * @author {Shubham Laxmikant Deshmukh}
  * @version {v1}
  */
-public class Sorter {
+public class Sorter implements SortEngine {
 
-    private static File statsFile;
+    private File statsFile;
     private String filename;
-    private BufferPool buffpool;
-    private int cacheCount = 0;
+    private BufferPoolADT buffpool;
+    private long swapCount = 0;
+    private long keyReads = 0;
+    private boolean threeWay;
+    private boolean jmx;
+    private int presortBlocks;
+    private long presorted = 0;
     private int time = 0;
+    private static final int RUN = BufferPool.BUFFERSIZE
+        / BufferPoolADT.RECORDSIZE;
     private byte[] tempByte;
-    private byte[] leftByte;
-    private byte[] rightByte;
+    private byte[] leftRun;
+    private long leftStart;
+    private int leftCount;
+    private byte[] rightRun;
+    private long rightStart;
+    private int rightCount;
+    private BlockCursor lower;
+    private BlockCursor upper;
+    private BlockCursor frontEqual;
+    private BlockCursor backEqual;
+    private KeyShadow shadow;
+    private PivotStrategy pivot;
+    private long greaterStart;
+    private LongToIntFunction keys = ind -> keyAt(lower, ind);
 
     /**
      * Constructor for the Sorter class.
@@ -31,20 +54,144 @@ public class Sorter {
      *            the number of buffer slots available
      * @param statFileName
      *            the name of the output file for statistics
+     * @throws IOException
+     *             if the data file cannot be opened
      */
-    public Sorter(String dataFileName, int numBuffers, String statFileName) {
+    public Sorter(String dataFileName, int numBuffers, String statFileName)
+        throws IOException {
+        this(dataFileName, numBuffers, statFileName, new SortOptions());
+    }
+
+
+    /**
+     * Constructor for the Sorter class with optional settings.
+     *
+     * @param dataFileName
+     *            the name of the file to be sorted
+     * @param numBuffers
+     *            the number of buffer slots available
+     * @param statFileName
+     *            the name of the output file for statistics
+     * @param options
+     *            the optional settings of the sort
+     * @throws IOException
+     *             if the data file cannot be opened
+     */
+    public Sorter(
+        String dataFileName,
+        int numBuffers,
+        String statFileName,
+        SortOptions options)
+        throws IOException {
+        this(openPool(dataFileName, numBuffers, options), options);
         filename = dataFileName;
         statsFile = new File(statFileName);
-        buffpool = new BufferPool(dataFileName, numBuffers);
+        jmx = options.getJmx();
+        presortBlocks = presortBlocks(options, numBuffers);
+    }
+
+
+    /**
+     * Constructor for a Sorter that sorts ranges of a pool opened by its
+     * caller, as each task of ParallelSorter does. It has no statistics
+     * file of its own, and its writeTime is not meant to be called.
+     *
+     * @param pool
+     *            the pool to sort through
+     * @param options
+     *            the optional settings of the sort
+     * @throws IOException
+     *             if the length of the file cannot be read
+     */
+    Sorter(BufferPoolADT pool, SortOptions options) throws IOException {
+        buffpool = pool;
+        pivot = PivotStrategy.forName(options.getPivot());
+        threeWay = options.getPartition().equals("three");
         tempByte = new byte[4];
-        leftByte = new byte[4];
-        rightByte = new byte[4];
+        leftRun = new byte[BufferPool.BUFFERSIZE];
+        rightRun = new byte[BufferPool.BUFFERSIZE];
+        int cursors = threeWay ? 4 : 2;
+        if (options.getShadow() > 0) {
+            cursors++;
+        }
+        if (buffpool instanceof BufferPool && ((BufferPool)buffpool)
+            .capacity() >= cursors) {
+            lower = new BlockCursor((BufferPool)buffpool);
+            upper = new BlockCursor((BufferPool)buffpool);
+            if (threeWay) {
+                frontEqual = new BlockCursor((BufferPool)buffpool);
+                backEqual = new BlockCursor((BufferPool)buffpool);
+            }
+        }
+        if (options.getShadow() > 0) {
+            shadow = new KeyShadow(buffpool, buffpool.getFileLength() / 4,
+                options.getShadow());
+        }
+    }
 
+
+    /**
+     * Open the pool a sort reads and writes the file through, as set by the
+     * options.
+     *
+     * @param dataFileName
+     *            the name of the file to be sorted
+     * @param numBuffers
+     *            the number of buffer slots available
+     * @param options
+     *            the optional settings of the sort
+     * @return the pool
+     * @throws IOException
+     *             if the data file cannot be opened
+     */
+    private static BufferPoolADT openPool(
+        String dataFileName,
+        int numBuffers,
+        SortOptions options)
+        throws IOException {
+        if (options.getBackend().equals("mmap")) {
+            return new MappedBufferPool(dataFileName);
+        }
+        BufferPool pool = new BufferPool(dataFileName, numBuffers,
+            ReplacementPolicy.forName(options.getPolicy(), numBuffers));
+        if (options.getWriteBehind() > 0) {
+            pool.enableWriteBehind(options.getWriteBehind());
+        }
+        if (options.getPrefetch() > 0) {
+            pool.enablePrefetch(options.getPrefetch());
+        }
+        if (options.getCoalesce()) {
+            pool.enableCoalescing();
+        }
+        return pool;
     }
 
 
     /**
-     * Write statistics to the specified output file.
+     * Get the number of blocks each chunk of the presort pass holds.
+     *
+     * @param options
+     *            the optional settings of the sort
+     * @param numBuffers
+     *            the number of buffer slots available
+     * @return the chunk size in blocks, 0 when there is no presort pass
+     */
+    static int presortBlocks(SortOptions options, int numBuffers) {
+        switch (options.getPresort()) {
+            case "block":
+                return 1;
+            case "pool":
+                return Math.max(1, numBuffers);
+            default:
+                return 0;
+        }
+    }
+
+
+    /**
+     * Write statistics to the specified output file. The cache hits are the
+     * lookups the pool served without reading the file; the swaps of the
+     * sort follow the time on a line of their own.
      *
      * @param input
      *            the output file to write statistics to
@@ -55,10 +202,37 @@ public class Sorter {
         PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(
             input, true)));
         writer.println("Sort on " + filename);
-        writer.println("Cache Hits: " + cacheCount);
+        writer.println("Cache Hits: " + buffpool.cacheHits());
         writer.println("Disk Reads: " + buffpool.discRead());
         writer.println("Disk Writes: " + buffpool.discWrite());
         writer.println("Time is " + time);
+        writer.println("Swaps: " + swapCount);
+        writer.println("Key Reads: " + keyReads);
+        if (presortBlocks > 0) {
+            writer.println("Presorted Chunks: " + presorted + " of "
+                + presortBlocks + " blocks");
+        }
+        if (shadow != null) {
+            writer.println("Key Shadow: " + shadow.blocks() + " blocks, "
+                + shadow.bytes() + " bytes (hits " + shadow.hits()
+                + ", loads " + shadow.loads() + ")");
+        }
+        if (buffpool instanceof BufferPool) {
+            ReplacementPolicy policy = ((BufferPool)buffpool).getPolicy();
+            writer.println("Replacement Policy: " + policy.name() + " (hits "
+                + policy.hits() + ", misses " + policy.misses() + ")");
+            BufferPoolStats stats = ((BufferPool)buffpool).stats();
+            writer.println("Evictions: " + stats.cleanEvictions() + " clean, "
+                + stats.dirtyEvictions() + " dirty");
+            writer.println("Miss Latency: p50 " + stats.missLatency()
+                .percentile(50) + " ns, p99 " + stats.missLatency().percentile(
+                    99) + " ns");
+            writer.println("Physical Writes: " + ((BufferPool)buffpool)
+                .physicalWrites());
+            writer.println("Prefetch Hits: " + ((BufferPool)buffpool)
+                .prefetchHits() + ", Waste: " + ((BufferPool)buffpool)
+                    .prefetchWaste());
+        }
         writer.close();
     }
 
@@ -70,17 +244,94 @@ public class Sorter {
      *             if there is an issue with I/O operations
      */
     public void writeTime() throws IOException {
+        BufferPoolMonitor monitor = null;
+        if (jmx && buffpool instanceof BufferPool) {
+            monitor = new BufferPoolMonitor((BufferPool)buffpool);
+            try {
+                monitor.register(filename);
+            }
+            catch (JMException e) {
+                e.printStackTrace();
+                monitor = null;
+            }
+        }
         final long start = System.currentTimeMillis();
-        quicksort(buffpool, 0, (buffpool.getFileLength() - 4) / 4);
+        long records = buffpool.getFileLength() / 4;
+        if (presortBlocks > 0) {
+            presort(buffpool, records, presortBlocks);
+            if (shadow != null) {
+                shadow.clear();
+            }
+        }
+        quicksort(buffpool, 0, records - 1);
         final long end = System.currentTimeMillis();
+        if (lower != null) {
+            lower.release();
+            upper.release();
+        }
+        if (frontEqual != null) {
+            frontEqual.release();
+            backEqual.release();
+        }
         buffpool.flush();
+        buffpool.close();
+        if (monitor != null) {
+            try {
+                monitor.unregister();
+            }
+            catch (JMException e) {
+                e.printStackTrace();
+            }
+        }
         time = (int)(end - start);
         writeFile(statsFile);
     }
 
 
     /**
-     * Perform the quicksort algorithm on the provided BufferPool.
+     * Sort each chunk of a number of blocks in memory before the global
+     * sort. Each chunk is read from the pool once, sorted as packed records
+     * and written back once, so the pass costs one sequential read and
+     * write of the file. The partitions of the quicksort then find the
+     * keys of each chunk in order, and leave more of them where they are.
+     *
+     * @param buff
+     *            the BufferPool to sort through
+     * @param records
+     *            the number of records in the file
+     * @param blocks
+     *            the number of blocks of each chunk
+     */
+    void presort(BufferPoolADT buff, long records, int blocks) {
+        int size = blocks * RUN;
+        byte[] chunk = new byte[size * BufferPoolADT.RECORDSIZE];
+        IntBuffer ints = ByteBuffer.wrap(chunk).asIntBuffer();
+        int[] data = new int[size];
+        for (long start = 0; start < records; start += size) {
+            int count = (int)Math.min(size, records - start);
+            buff.getRecords(chunk, count, start);
+            ints.clear();
+            ints.get(data, 0, count);
+            Arrays.sort(data, 0, count);
+            ints.clear();
+            ints.put(data, 0, count);
+            buff.insertRecords(chunk, count, start);
+            presorted++;
+        }
+    }
+
+
+    /**
+     * Perform the quicksort algorithm on the provided BufferPool. Ranges
+     * waiting to be sorted are kept on an explicit stack instead of the call
+     * stack; the larger side of each partition is pushed and the smaller
+     * one sorted next, so the stack holds at most one range per halving.
+     * A range that is still being partitioned after 2 log2(n) levels is
+     * heapsorted instead, which bounds the sort at n log n swaps whatever
+     * the input. Ranges of at most 11 records are insertion sorted. In
+     * three-way mode, the keys equal to the pivot are gathered in the middle
+     * of the range by the partition and never looked at again, so a range
+     * of equal keys is done after one scan.
      *
      * @param buff
      *            the BufferPool to perform sorting on
@@ -91,52 +342,250 @@ public class Sorter {
      * @throws IOException
      *             if there is an issue with I/O operations
      */
-    public void quicksort(BufferPool buff, int i, int j) throws IOException {
-        int pivotind = findpivot(i, j);
-        swap(buff, pivotind, j);
-        int l = 0;
-        int temp = i;
-        if (getKey(temp) == getKey(j)) {
-            while (getKey(temp) == getKey(j) && temp <= j) {
-                temp += 1;
-            }
-            if (temp > j) {
-                return;
-            }
+    public void quicksort(BufferPoolADT buff, long i, long j)
+        throws IOException {
+        if (j > i) {
+            sort(buff, i, j, 0, depthLimit(j - i + 1));
         }
-        l = partition(buff, i, j - 1, getKey(j));
-        swap(buff, l, j);
-        if ((l - i) > 1) {
-            if (l - i <= 10) {
-                for (int temp1 = i; temp1 <= l - 1; temp1 = temp1 + 1) {
-                    for (int temp2 = temp1; (temp2 > 0) && getKey(
-                        temp2) < getKey(temp2 - 1); temp2 = temp2 - 1) {
-                        swap(buff, temp2, temp2 - 1);
-                    }
+    }
+
+
+    /**
+     * Get the depth past which a quicksort of a range heapsorts it instead
+     * of partitioning it further.
+     *
+     * @param records
+     *            the number of records in the range
+     * @return 2 log2(records), rounded up
+     */
+    static int depthLimit(long records) {
+        return 2 * (64 - Long.numberOfLeadingZeros(records));
+    }
+
+
+    /**
+     * The loop of quicksort, for a range that may already be some levels
+     * deep in a larger sort, as the ranges ParallelSorter hands to its
+     * tasks are.
+     *
+     * @param buff
+     *            the BufferPool to perform sorting on
+     * @param i
+     *            the left index
+     * @param j
+     *            the right index
+     * @param start
+     *            the number of partitions above the range
+     * @param limit
+     *            the depth at which ranges are heapsorted
+     */
+    void sort(BufferPoolADT buff, long i, long j, long start, int limit) {
+        long[] stack = new long[3 * 64];
+        int top = 0;
+        stack[top++] = i;
+        stack[top++] = j;
+        stack[top++] = start;
+        while (top > 0) {
+            long depth = stack[--top];
+            long right = stack[--top];
+            long left = stack[--top];
+            boolean done = false;
+            while (right - left > 10) {
+                if (depth >= limit) {
+                    heapsort(buff, left, right);
+                    done = true;
+                    break;
+                }
+                long less = split(buff, left, right);
+                if (less < 0) {
+                    done = true;
+                    break;
+                }
+                long greater = greaterStart;
+                depth++;
+                if (less - left < right - greater) {
+                    stack[top++] = greater;
+                    stack[top++] = right;
+                    stack[top++] = depth;
+                    right = less - 1;
+                }
+                else {
+                    stack[top++] = left;
+                    stack[top++] = less - 1;
+                    stack[top++] = depth;
+                    left = greater;
                 }
             }
-            else {
-                quicksort(buff, i, l - 1);
+            if (!done) {
+                insertionSort(buff, left, right);
             }
         }
-        if ((j - l) > 1) {
-            if (j - l <= 10) {
-                for (int temp1 = l + 1; temp1 <= j; temp1 = temp1 + 1) {
-                    for (int temp2 = temp1; (temp2 > 0) && getKey(
-                        temp2) < getKey(temp2 - 1); temp2 = temp2 - 1) {
-                        swap(buff, temp2, temp2 - 1);
-                    }
+    }
+
+
+    /**
+     * Partition a range once around the pivot findpivot picks. The keys
+     * less than the pivot end up in [left, less) and the greater ones in
+     * [greaterStart, right]; the records between hold the pivot key.
+     *
+     * @param buff
+     *            the BufferPool
+     * @param left
+     *            the left index
+     * @param right
+     *            the right index
+     * @return the start of the pivot keys, or -1 if the two-way partition
+     *         found every key of the range equal, so that it is sorted
+     */
+    long split(BufferPoolADT buff, long left, long right) {
+        if (threeWay) {
+            return partitionThree(buff, left, right, keyAt(lower, findpivot(
+                left, right)));
+        }
+        swap(buff, findpivot(left, right), right);
+        int pivotKey = keyAt(upper, right);
+        long temp = left;
+        while (temp < right && keyAt(lower, temp) == pivotKey) {
+            temp += 1;
+        }
+        if (temp == right) {
+            return -1;
+        }
+        long l = partition(buff, left, right - 1, pivotKey);
+        swap(buff, l, right);
+        greaterStart = l + 1;
+        return l;
+    }
+
+
+    /**
+     * Get the number of swaps made so far.
+     *
+     * @return the number of swaps
+     */
+    long swaps() {
+        return swapCount;
+    }
+
+
+    /**
+     * Get the number of keys read so far.
+     *
+     * @return the number of key reads
+     */
+    long keyReads() {
+        return keyReads;
+    }
+
+
+    /**
+     * Get the number of chunks presorted so far.
+     *
+     * @return the number of chunks
+     */
+    long presorted() {
+        return presorted;
+    }
+
+
+    /**
+     * Get where the greater keys of the last split start.
+     *
+     * @return the first index of the greater keys
+     */
+    long greaterStart() {
+        return greaterStart;
+    }
+
+
+    /**
+     * Insertion sort a small range. The key being inserted travels with its
+     * record, so it is read once rather than at every step.
+     *
+     * @param buff
+     *            the BufferPool
+     * @param left
+     *            the left index
+     * @param right
+     *            the right index
+     */
+    private void insertionSort(BufferPoolADT buff, long left, long right) {
+        for (long temp1 = left + 1; temp1 <= right; temp1++) {
+            int key = keyAt(upper, temp1);
+            for (long temp2 = temp1; temp2 > left && key < keyAt(lower, temp2
+                - 1); temp2--) {
+                swap(buff, temp2 - 1, temp2);
+            }
+        }
+    }
+
+
+    /**
+     * Heapsort a range, the fallback of ranges that partition badly.
+     *
+     * @param buff
+     *            the BufferPool
+     * @param left
+     *            the left index
+     * @param right
+     *            the right index
+     */
+    private void heapsort(BufferPoolADT buff, long left, long right) {
+        long count = right - left + 1;
+        for (long node = count / 2 - 1; node >= 0; node--) {
+            siftDown(buff, left, node, count);
+        }
+        for (long last = count - 1; last > 0; last--) {
+            swap(buff, left, left + last);
+            siftDown(buff, left, 0, last);
+        }
+    }
+
+
+    /**
+     * Restore the max-heap order below a node of a heap laid out from base.
+     *
+     * @param buff
+     *            the BufferPool
+     * @param base
+     *            the index of the root of the heap
+     * @param node
+     *            the node to sift down, relative to base
+     * @param count
+     *            the number of records in the heap
+     */
+    private void siftDown(
+        BufferPoolADT buff,
+        long base,
+        long node,
+        long count) {
+        int key = keyAt(lower, base + node);
+        while (2 * node + 1 < count) {
+            long child = 2 * node + 1;
+            int childKey = keyAt(upper, base + child);
+            if (child + 1 < count) {
+                int rightKey = keyAt(upper, base + child + 1);
+                if (rightKey > childKey) {
+                    child++;
+                    childKey = rightKey;
                 }
             }
-            else {
-                quicksort(buff, l + 1, j);
+            if (key >= childKey) {
+                return;
             }
+            swap(buff, base + node, base + child);
+            node = child;
         }
     }
 
 
     /**
-     * Partition the data in the BufferPool.
+     * Partition the data in the BufferPool. The left and right scans each
+     * read their keys straight from a pinned block. When the pool is too
+     * small to pin two blocks, each scan instead reads a run of records up to
+     * the next block boundary at once and takes its keys from that run. Either
+     * way the pool is only visited once per block and per swap. With a key
+     * shadow, both scans take their keys from the shadow instead.
      *
      * @param buff
      *            the BufferPool to perform partitioning on
@@ -148,16 +597,27 @@ public class Sorter {
      *            the pivot value
      * @return the partition index
      */
-    public int partition(BufferPool buff, int left, int right, int pivot) {
+    public long partition(
+        BufferPoolADT buff,
+        long left,
+        long right,
+        int pivot) {
+        long low = left;
+        long high = right + 1;
+        leftCount = 0;
+        rightCount = 0;
         while (left <= right) {
-            while (getKey(left) < pivot) {
+            while (leftKey(buff, left, high) < pivot) {
                 left = left + 1;
             }
-            while (right >= left && getKey(right) >= pivot) {
+            while (right >= left && rightKey(buff, right, low) >= pivot) {
                 right = right - 1;
             }
             if (right > left) {
                 swap(buff, left, right);
+                if (lower == null && shadow == null) {
+                    swapInRuns(left, right);
+                }
             }
         }
         return left;
@@ -165,22 +625,208 @@ public class Sorter {
 
 
     /**
-     * Get the key at a specified index in the BufferPool.
+     * Partition a range three ways around a pivot key, the Bentley-McIlroy
+     * way. The two scans of partition meet in the middle as usual, except
+     * that a key equal to the pivot is swapped to the end its scan started
+     * from. The equal keys gathered at both ends are then swapped in next
+     * to each other between the two sides, so only keys out of place and
+     * keys equal to the pivot are ever moved.
+     *
+     * @param buff
+     *            the BufferPool to perform partitioning on
+     * @param left
+     *            the left index
+     * @param right
+     *            the right index
+     * @param pivot
+     *            the pivot value, the key of one record of the range
+     * @return the index of the first key equal to the pivot; the index of
+     *         the first key above it is left in greaterStart
+     */
+    private long partitionThree(
+        BufferPoolADT buff,
+        long left,
+        long right,
+        int pivot) {
+        long front = left;
+        long back = right;
+        long next = left;
+        long last = right;
+        while (true) {
+            int key;
+            while (next <= last && (key = keyAt(lower, next)) <= pivot) {
+                if (key == pivot) {
+                    exchange(buff, frontEqual, front++, lower, next);
+                }
+                next++;
+            }
+            while (last >= next && (key = keyAt(upper, last)) >= pivot) {
+                if (key == pivot) {
+                    exchange(buff, upper, last, backEqual, back--);
+                }
+                last--;
+            }
+            if (next > last) {
+                break;
+            }
+            swap(buff, next++, last--);
+        }
+        long count = Math.min(front - left, next - front);
+        for (long k = 0; k < count; k++) {
+            exchange(buff, frontEqual, left + k, lower, next - count + k);
+        }
+        count = Math.min(back - last, right - back);
+        for (long k = 0; k < count; k++) {
+            exchange(buff, upper, last + 1 + k, backEqual, right - count + 1
+                + k);
+        }
+        greaterStart = right - (back - last) + 1;
+        return left + (next - front);
+    }
+
+
+    /**
+     * Get a key through the forward run, reading the records from the index
+     * up to the end of its block (or of the range) when it is not in the run.
+     *
+     * @param buff
+     *            the BufferPool
+     * @param ind
+     *            the index of the key
+     * @param high
+     *            the last index the scan may reach
+     * @return the key value
+     */
+    private int leftKey(BufferPoolADT buff, long ind, long high) {
+        keyReads++;
+        if (shadow != null) {
+            return shadow.key(ind);
+        }
+        if (lower != null) {
+            return lower.key(ind);
+        }
+        if (ind < leftStart || ind >= leftStart + leftCount) {
+            leftStart = ind;
+            leftCount = (int)Math.min(RUN - ind % RUN, high - ind + 1);
+            buff.getRecords(leftRun, leftCount, leftStart);
+        }
+        return runKey(leftRun, (int)(ind - leftStart));
+    }
+
+
+    /**
+     * Get a key through the backward run, reading the records from the start
+     * of its block (or of the range) up to the index when it is not in the
+     * run.
+     *
+     * @param buff
+     *            the BufferPool
+     * @param ind
+     *            the index of the key
+     * @param low
+     *            the first index the scan may reach
+     * @return the key value
+     */
+    private int rightKey(BufferPoolADT buff, long ind, long low) {
+        keyReads++;
+        if (shadow != null) {
+            return shadow.key(ind);
+        }
+        if (upper != null) {
+            return upper.key(ind);
+        }
+        if (ind < rightStart || ind >= rightStart + rightCount) {
+            rightStart = Math.max(ind - ind % RUN, low);
+            rightCount = (int)(ind - rightStart + 1);
+            buff.getRecords(rightRun, rightCount, rightStart);
+        }
+        return runKey(rightRun, (int)(ind - rightStart));
+    }
+
+
+    /**
+     * Mirror a swap made in the pool in the copies held by the runs.
+     *
+     * @param left
+     *            the left index, held by the forward run
+     * @param right
+     *            the right index, held by the backward run
+     */
+    private void swapInRuns(long left, long right) {
+        int leftOffset = (int)(left - leftStart) * BufferPoolADT.RECORDSIZE;
+        int rightOffset = (int)(right - rightStart) * BufferPoolADT.RECORDSIZE;
+        for (int k = 0; k < BufferPoolADT.RECORDSIZE; k++) {
+            byte temp = leftRun[leftOffset + k];
+            leftRun[leftOffset + k] = rightRun[rightOffset + k];
+            rightRun[rightOffset + k] = temp;
+        }
+        if (right < leftStart + leftCount) {
+            System.arraycopy(rightRun, rightOffset, leftRun, (int)(right
+                - leftStart) * BufferPoolADT.RECORDSIZE,
+                BufferPoolADT.RECORDSIZE);
+        }
+        if (left >= rightStart) {
+            System.arraycopy(leftRun, leftOffset, rightRun, (int)(left
+                - rightStart) * BufferPoolADT.RECORDSIZE,
+                BufferPoolADT.RECORDSIZE);
+        }
+    }
+
+
+    private static int runKey(byte[] run, int record) {
+        return Buffer.decodeKey(run, record * BufferPoolADT.RECORDSIZE);
+    }
+
+
+    /**
+     * Get the key at a specified index in the BufferPool, decoded in place
+     * from a scratch copy of the record without allocating.
      *
      * @param ind
      *            the index of the key
      * @return the key value
      */
-    public int getKey(int ind) {
+    public int getKey(long ind) {
         buffpool.getBytes(tempByte, 4, ind);
-        ByteBuffer byteBuffer = ByteBuffer.wrap(tempByte);
-        int length = byteBuffer.getShort();
-        return length;
+        return Buffer.decodeKey(tempByte, 0);
     }
 
 
     /**
-     * Find the pivot index for quicksort.
+     * Get a key through the key shadow, or through a cursor, or through the
+     * pool when the pool is too small for cursors.
+     *
+     * @param cursor
+     *            the cursor to read through, or null
+     * @param ind
+     *            the index of the key
+     * @return the key value
+     */
+    private int keyAt(BlockCursor cursor, long ind) {
+        keyReads++;
+        if (shadow != null) {
+            return shadow.key(ind);
+        }
+        if (cursor == null) {
+            return getKey(ind);
+        }
+        return cursor.key(ind);
+    }
+
+
+    /**
+     * Get the pool the sorter reads and writes the file through. Partitions
+     * run outside writeTime, as the benchmarks do, have to be given it.
+     *
+     * @return the pool
+     */
+    public BufferPoolADT getPool() {
+        return buffpool;
+    }
+
+
+    /**
+     * Find the pivot index for quicksort with the pivot strategy.
      *
      * @param left
      *            the left index
@@ -188,8 +834,8 @@ public class Sorter {
      *            the right index
      * @return the pivot index
      */
-    public int findpivot(int left, int right) {
-        return (left + right) / 2;
+    public long findpivot(long left, long right) {
+        return pivot.pick(keys, left, right);
     }
 
 
@@ -203,11 +849,41 @@ public class Sorter {
      * @param right
      *            the right index
      */
-    public void swap(BufferPool buff, int left, int right) {
-        cacheCount++;
-        buff.getBytes(leftByte, 4, left);
-        buff.getBytes(rightByte, 4, right);
-        buff.insert(rightByte, 4, left);
-        buff.insert(leftByte, 4, right);
+    public void swap(BufferPoolADT buff, long left, long right) {
+        exchange(buff, lower, left, upper, right);
+    }
+
+
+    /**
+     * Swap elements through a pair of cursors, or through the pool when
+     * there are no cursors.
+     *
+     * @param buff
+     *            the BufferPool
+     * @param leftCursor
+     *            the cursor to reach the left index through, or null
+     * @param left
+     *            the left index
+     * @param rightCursor
+     *            the cursor to reach the right index through, or null
+     * @param right
+     *            the right index
+     */
+    private void exchange(
+        BufferPoolADT buff,
+        BlockCursor leftCursor,
+        long left,
+        BlockCursor rightCursor,
+        long right) {
+        swapCount++;
+        if (leftCursor != null && rightCursor != null) {
+            leftCursor.swap(left, rightCursor, right);
+        }
+        else {
+            buff.swapRecords(left, right);
+        }
+        if (shadow != null) {
+            shadow.swap(left, right);
+        }
     }
 }
@@ -0,0 +1,329 @@
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * The StripedBufferPool class is a buffer pool that several threads may use
+ * at once. Its frames are split between a number of shards, each a
+ * BufferPool of its own, and block b belongs to shard b modulo the number of
+ * shards. Every access locks only the shard of its block, so threads working
+ * on different blocks rarely wait for each other. A swap between two shards
+ * locks both, always the lower shard first, so two swaps cannot deadlock.
+ * The shards share one file channel and read it with positional reads, and
+ * their statistics are LongAdders, so totals are summed without locking.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class StripedBufferPool implements BufferPoolADT {
+    private static final int BLOCKSIZE = BufferPool.BUFFERSIZE;
+    private RandomAccessFile file;
+    private BufferPool[] shards;
+
+    /**
+     * Constructor for the StripedBufferPool class. The frames are divided
+     * evenly between the shards; there are never more shards than frames.
+     *
+     * @param dataFileName
+     *            the path to the file
+     * @param numBuffers
+     *            the total number of frames
+     * @param stripes
+     *            the number of shards wanted
+     * @param policy
+     *            the name of the replacement policy of each shard
+     */
+    public StripedBufferPool(
+        String dataFileName,
+        int numBuffers,
+        int stripes,
+        String policy) {
+        try {
+            file = new RandomAccessFile(dataFileName, "rw");
+        }
+        catch (FileNotFoundException e) {
+            e.printStackTrace();
+        }
+        int count = Math.max(1, Math.min(stripes, numBuffers));
+        shards = new BufferPool[count];
+        for (int i = 0; i < count; i++) {
+            int frames = numBuffers / count + (i < numBuffers % count ? 1 : 0);
+            shards[i] = new BufferPool(file.getChannel(), frames,
+                ReplacementPolicy.forName(policy, frames));
+        }
+    }
+
+
+    /**
+     * Inserts data into the buffer pool at the specified index, locking the
+     * shard of each block in turn.
+     *
+     * @param space
+     *            the data to insert
+     * @param size
+     *            the size of the data to insert
+     * @param ind
+     *            the index at which to insert
+     */
+    public void insert(byte[] space, int size, long ind) {
+        long position = ind * RECORDSIZE;
+        int done = 0;
+        while (done < size) {
+            int length = (int)Math.min(size - done, BLOCKSIZE - (position
+                + done) % BLOCKSIZE);
+            BufferPool shard = shardOf((position + done) / BLOCKSIZE);
+            synchronized (shard) {
+                shard.write(space, done, length, position + done);
+            }
+            done += length;
+        }
+    }
+
+
+    /**
+     * Retrieves data from the buffer pool at the specified index, locking the
+     * shard of each block in turn.
+     *
+     * @param space
+     *            the space to store the retrieved data
+     * @param size
+     *            the size of the data to retrieve
+     * @param ind
+     *            the index from which to retrieve the data
+     */
+    public void getBytes(byte[] space, int size, long ind) {
+        long position = ind * RECORDSIZE;
+        int done = 0;
+        while (done < size) {
+            int length = (int)Math.min(size - done, BLOCKSIZE - (position
+                + done) % BLOCKSIZE);
+            BufferPool shard = shardOf((position + done) / BLOCKSIZE);
+            synchronized (shard) {
+                shard.read(space, done, length, position + done);
+            }
+            done += length;
+        }
+    }
+
+
+    /**
+     * Retrieves a run of records from the buffer pool.
+     *
+     * @param space
+     *            the space to store the records in
+     * @param count
+     *            the number of records to retrieve
+     * @param start
+     *            the index of the first record
+     */
+    public void getRecords(byte[] space, int count, long start) {
+        getBytes(space, count * RECORDSIZE, start);
+    }
+
+
+    /**
+     * Inserts a run of records into the buffer pool.
+     *
+     * @param space
+     *            the records to insert
+     * @param count
+     *            the number of records to insert
+     * @param start
+     *            the index of the first record
+     */
+    public void insertRecords(byte[] space, int count, long start) {
+        insert(space, count * RECORDSIZE, start);
+    }
+
+
+    /**
+     * Gets a whole record, packed big-endian into an int.
+     *
+     * @param ind
+     *            the index of the record
+     * @return the packed record
+     */
+    public int getRecord(long ind) {
+        BufferPool shard = shardOf(ind * RECORDSIZE / BLOCKSIZE);
+        synchronized (shard) {
+            return shard.getRecord(ind);
+        }
+    }
+
+
+    /**
+     * Swaps two records atomically with respect to other callers.
+     *
+     * @param first
+     *            the index of the first record
+     * @param second
+     *            the index of the second record
+     */
+    public void swapRecords(long first, long second) {
+        BufferPool left = shardOf(first * RECORDSIZE / BLOCKSIZE);
+        BufferPool right = shardOf(second * RECORDSIZE / BLOCKSIZE);
+        if (left == right) {
+            synchronized (left) {
+                left.swapRecords(first, second);
+            }
+            return;
+        }
+        BufferPool outer = left;
+        BufferPool inner = right;
+        if (shardNumber(first) > shardNumber(second)) {
+            outer = right;
+            inner = left;
+        }
+        synchronized (outer) {
+            synchronized (inner) {
+                int record = left.getRecord(first);
+                left.setRecord(first, right.getRecord(second));
+                right.setRecord(second, record);
+            }
+        }
+    }
+
+
+    /**
+     * Flushes the dirty buffers of every shard.
+     *
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void flush() throws IOException {
+        for (BufferPool shard : shards) {
+            synchronized (shard) {
+                shard.flush();
+            }
+        }
+    }
+
+
+    /**
+     * Closes every shard and then the file.
+     *
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public void close() throws IOException {
+        for (BufferPool shard : shards) {
+            synchronized (shard) {
+                shard.close();
+            }
+        }
+        file.close();
+    }
+
+
+    /**
+     * Moves the writes of dirty evictions of every shard to a background
+     * thread of its own.
+     *
+     * @param depth
+     *            the number of evicted blocks that may wait in each shard
+     */
+    public void enableWriteBehind(int depth) {
+        for (BufferPool shard : shards) {
+            shard.enableWriteBehind(depth);
+        }
+    }
+
+
+    /**
+     * Writes each dirty eviction of every shard together with the dirty
+     * neighbours resident in that shard.
+     */
+    public void enableCoalescing() {
+        for (BufferPool shard : shards) {
+            shard.enableCoalescing();
+        }
+    }
+
+
+    /**
+     * Gets the number of shards.
+     *
+     * @return the number of shards
+     */
+    public int shards() {
+        return shards.length;
+    }
+
+
+    /**
+     * Gets the length of the file.
+     *
+     * @return the length of the file
+     * @throws IOException
+     *             if there is an issue with I/O operations
+     */
+    public long getFileLength() throws IOException {
+        return file.getChannel().size();
+    }
+
+
+    /**
+     * Gets the number of cache hits of all shards.
+     *
+     * @return the number of cache hits
+     */
+    public long cacheHits() {
+        long total = 0;
+        for (BufferPool shard : shards) {
+            total += shard.cacheHits();
+        }
+        return total;
+    }
+
+
+    /**
+     * Gets the number of disk writes of all shards.
+     *
+     * @return the number of disk writes
+     */
+    public long discWrite() {
+        long total = 0;
+        for (BufferPool shard : shards) {
+            total += shard.discWrite();
+        }
+        return total;
+    }
+
+
+    /**
+     * Gets the number of write calls issued by all shards.
+     *
+     * @return the number of physical write operations
+     */
+    public long physicalWrites() {
+        long total = 0;
+        for (BufferPool shard : shards) {
+            total += shard.physicalWrites();
+        }
+        return total;
+    }
+
+
+    /**
+     * Gets the number of disk reads of all shards.
+     *
+     * @return the number of disk reads
+     */
+    public long discRead() {
+        long total = 0;
+        for (BufferPool shard : shards) {
+            total += shard.discRead();
+        }
+        return total;
+    }
+
+
+    private int shardNumber(long ind) {
+        return (int)(ind * RECORDSIZE / BLOCKSIZE % shards.length);
+    }
+
+
+    private BufferPool shardOf(long block) {
+        return shards[(int)(block % shards.length)];
+    }
+}
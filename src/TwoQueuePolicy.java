@@ -0,0 +1,144 @@
+/**
+ * The TwoQueuePolicy class implements the 2Q replacement policy, a
+ * constant-time approximation of LRU-2. Blocks seen for the first time enter
+ * a FIFO queue (A1in); when they are evicted from it, their ids are
+ * remembered in a ghost queue (A1out). A block that misses again while it is
+ * still remembered is admitted to the LRU queue of hot blocks (Am). One-time
+ * scans therefore never push hot blocks out of the pool. Both queues link
+ * frames by index, so no call allocates.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class TwoQueuePolicy implements ReplacementPolicy {
+    private ListLRU in;
+    private ListLRU hot;
+    private boolean[] isHot;
+    private long[] blocks;
+    private int maxIn;
+    private long[] ghosts;
+    private BlockIndex ghostIndex;
+    private int ghostHead = 0;
+    private int ghostCount = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Constructor for the TwoQueuePolicy class. A1in is kept to a quarter of
+     * the pool and A1out remembers half as many blocks as the pool holds.
+     *
+     * @param numBuffers
+     *            the number of frames in the pool
+     */
+    public TwoQueuePolicy(int numBuffers) {
+        in = new ListLRU(numBuffers);
+        hot = new ListLRU(numBuffers);
+        isHot = new boolean[numBuffers];
+        blocks = new long[numBuffers];
+        maxIn = Math.max(1, numBuffers / 4);
+        ghosts = new long[Math.max(1, numBuffers / 2)];
+        ghostIndex = new BlockIndex(ghosts.length);
+    }
+
+
+    @Override
+    public void hit(int frame) {
+        hits++;
+        if (isHot[frame] && hot.contains(frame)) {
+            hot.touch(frame);
+        }
+    }
+
+
+    @Override
+    public void admit(int frame, long block) {
+        misses++;
+        blocks[frame] = block;
+        int ghost = ghostIndex.remove(block);
+        isHot[frame] = ghost >= 0;
+        link(frame);
+    }
+
+
+    @Override
+    public void pin(int frame) {
+        if (isHot[frame]) {
+            hot.remove(frame);
+        }
+        else {
+            in.remove(frame);
+        }
+    }
+
+
+    @Override
+    public void unpin(int frame) {
+        link(frame);
+    }
+
+
+    @Override
+    public int victim() {
+        int frame;
+        if (in.size() > maxIn || hot.size() == 0) {
+            frame = in.evictTail();
+            remember(blocks[frame]);
+        }
+        else {
+            frame = hot.evictTail();
+        }
+        return frame;
+    }
+
+
+    private void link(int frame) {
+        if (isHot[frame]) {
+            hot.insertHead(frame);
+        }
+        else {
+            in.insertHead(frame);
+        }
+    }
+
+
+    /**
+     * Adds a block evicted from A1in to the ghost queue, forgetting the
+     * oldest remembered block when the queue is full. Slots of ghosts that
+     * were promoted to Am are skipped over as they reach the head.
+     *
+     * @param block
+     *            the block evicted from A1in
+     */
+    private void remember(long block) {
+        if (ghostCount == ghosts.length) {
+            long oldest = ghosts[ghostHead];
+            if (ghostIndex.get(oldest) == ghostHead) {
+                ghostIndex.remove(oldest);
+            }
+            ghostHead = (ghostHead + 1) % ghosts.length;
+            ghostCount--;
+        }
+        int slot = (ghostHead + ghostCount) % ghosts.length;
+        ghosts[slot] = block;
+        ghostIndex.put(block, slot);
+        ghostCount++;
+    }
+
+
+    @Override
+    public long hits() {
+        return hits;
+    }
+
+
+    @Override
+    public long misses() {
+        return misses;
+    }
+
+
+    @Override
+    public String name() {
+        return "2q";
+    }
+}
@@ -0,0 +1,245 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The WriteBehind class takes dirty blocks evicted from a BufferPool off the
+ * caller's thread. Each evicted block is copied into one of a fixed number
+ * of slots and queued; a background thread writes the queued slots to the
+ * file with positional FileChannel writes. While a block is queued, reads of
+ * it are served from its newest copy, and a block evicted again before its
+ * copy was written simply overwrites that copy. When every slot is queued,
+ * eviction waits for the writer, so the queue is bounded.
+ *
+ * @author Shubham Laxmikant Deshmukh
+ * @version v1
+ */
+public class WriteBehind implements Runnable {
+    private static final int BLOCKSIZE = BufferPool.BUFFERSIZE;
+    private FileChannel channel;
+    private byte[] copies;
+    private ByteBuffer[] views;
+    private long[] blocks;
+    private int[] queue;
+    private int head = 0;
+    private int queued = 0;
+    private int[] free;
+    private int freeCount;
+    private BlockIndex pending;
+    private int writing = -1;
+    private boolean closed = false;
+    private IOException failure = null;
+    private long physicalWrites = 0;
+    private Thread writer;
+
+    /**
+     * Constructor for the WriteBehind class. Starts the writer thread.
+     *
+     * @param channel
+     *            the channel of the file to write to
+     * @param depth
+     *            the number of blocks that may be queued at once
+     */
+    public WriteBehind(FileChannel channel, int depth) {
+        this.channel = channel;
+        copies = new byte[depth * BLOCKSIZE];
+        views = new ByteBuffer[depth];
+        blocks = new long[depth];
+        queue = new int[depth];
+        free = new int[depth];
+        for (int i = 0; i < depth; i++) {
+            views[i] = ByteBuffer.wrap(copies, i * BLOCKSIZE, BLOCKSIZE)
+                .slice();
+            free[i] = depth - 1 - i;
+        }
+        freeCount = depth;
+        pending = new BlockIndex(depth);
+        writer = new Thread(this, "write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+
+    /**
+     * Queues a copy of a block to be written, waiting for a free slot when
+     * the queue is full.
+     *
+     * @param block
+     *            the block to write
+     * @param source
+     *            the array holding the block
+     * @param offset
+     *            the offset of the block in the array
+     * @throws IOException
+     *             if an earlier write failed or the wait was interrupted
+     */
+    public synchronized void submit(long block, byte[] source, int offset)
+        throws IOException {
+        int slot = pending.get(block);
+        if (slot >= 0 && slot != writing) {
+            System.arraycopy(source, offset, copies, slot * BLOCKSIZE,
+                BLOCKSIZE);
+            return;
+        }
+        while (freeCount == 0 && failure == null) {
+            await();
+        }
+        check();
+        slot = free[--freeCount];
+        System.arraycopy(source, offset, copies, slot * BLOCKSIZE, BLOCKSIZE);
+        blocks[slot] = block;
+        pending.put(block, slot);
+        queue[(head + queued) % queue.length] = slot;
+        queued++;
+        notifyAll();
+    }
+
+
+    /**
+     * Copies the newest queued copy of a block, if the block is queued.
+     *
+     * @param block
+     *            the block to look up
+     * @param destination
+     *            the array to copy the block into
+     * @param offset
+     *            the offset in the array to copy to
+     * @return true if the block was queued and has been copied
+     */
+    public synchronized boolean lookup(
+        long block,
+        byte[] destination,
+        int offset) {
+        int slot = pending.get(block);
+        if (slot < 0) {
+            return false;
+        }
+        System.arraycopy(copies, slot * BLOCKSIZE, destination, offset,
+            BLOCKSIZE);
+        return true;
+    }
+
+
+    /**
+     * Tells whether a block is queued or being written.
+     *
+     * @param block
+     *            the block to look up
+     * @return true if the block is queued
+     */
+    public synchronized boolean contains(long block) {
+        return pending.get(block) >= 0;
+    }
+
+
+    /**
+     * Waits until every queued block has been written.
+     *
+     * @throws IOException
+     *             if a write failed or the wait was interrupted
+     */
+    public synchronized void drain() throws IOException {
+        while ((queued > 0 || writing >= 0) && failure == null) {
+            await();
+        }
+        check();
+    }
+
+
+    /**
+     * Writes every queued block and stops the writer thread.
+     *
+     * @throws IOException
+     *             if a write failed or the wait was interrupted
+     */
+    public void close() throws IOException {
+        drain();
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+    }
+
+
+    /**
+     * The writer thread: takes the oldest queued slot, writes it outside the
+     * lock and then frees it.
+     */
+    @Override
+    public void run() {
+        while (true) {
+            int slot;
+            synchronized (this) {
+                while (queued == 0 && !closed) {
+                    try {
+                        wait();
+                    }
+                    catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (queued == 0) {
+                    return;
+                }
+                slot = queue[head];
+                head = (head + 1) % queue.length;
+                queued--;
+                writing = slot;
+            }
+            try {
+                ByteBuffer view = views[slot];
+                view.clear();
+                long position = blocks[slot] * BLOCKSIZE;
+                while (view.hasRemaining()) {
+                    position += channel.write(view, position);
+                    synchronized (this) {
+                        physicalWrites++;
+                    }
+                }
+            }
+            catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                }
+            }
+            synchronized (this) {
+                if (pending.get(blocks[slot]) == slot) {
+                    pending.remove(blocks[slot]);
+                }
+                free[freeCount++] = slot;
+                writing = -1;
+                notifyAll();
+            }
+        }
+    }
+
+
+    /**
+     * Gets the number of write calls the writer thread has issued.
+     *
+     * @return the number of physical write operations
+     */
+    public synchronized long physicalWrites() {
+        return physicalWrites;
+    }
+
+
+    private void await() throws IOException {
+        try {
+            wait();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                "Interrupted while waiting for write-behind");
+        }
+    }
+
+
+    private void check() throws IOException {
+        if (failure != null) {
+            throw new IOException("Write-behind failed", failure);
+        }
+    }
+}